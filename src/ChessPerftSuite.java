@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import model.rules.Rule;
+import model.rules.RuleImplChess;
+import model.rules.gameRule.ChessPosition;
+import model.rules.gameRule.GameRuleImplChess;
+import model.search.Perft;
+import model.structs.GameStatistics;
+
+public class ChessPerftSuite {
+
+    /**
+     * Reference positions in EPD perft form: FEN, then the leaf count of each depth.
+     * From the chessprogramming wiki perft results page.
+     */
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+                    + " ;D1 20 ;D2 400 ;D3 8902 ;D4 197281 ;D5 4865609 ;D6 119060324",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+                    + " ;D1 48 ;D2 2039 ;D3 97862 ;D4 4085603 ;D5 193690690",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+                    + " ;D1 14 ;D2 191 ;D3 2812 ;D4 43238 ;D5 674624 ;D6 11030083",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"
+                    + " ;D1 6 ;D2 264 ;D3 9467 ;D4 422333 ;D5 15833292",
+            "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1"
+                    + " ;D1 6 ;D2 264 ;D3 9467 ;D4 422333 ;D5 15833292",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+                    + " ;D1 44 ;D2 1486 ;D3 62379 ;D4 2103487 ;D5 89941194",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+                    + " ;D1 46 ;D2 2079 ;D3 89890 ;D4 3894594 ;D5 164075551",
+    };
+
+    /**
+     * Depths also counted by {@link Perft} through {@link GameRuleImplChess}, checking the rule's
+     * grid, hash, move log and game over on top of the move generator; the generic path is slower.
+     */
+    private static final int RULE_DEPTH = 4;
+
+    /**
+     * Perft figures of one position at its deepest checked depth.
+     *
+     * @param counter what counted the leaves, the direct move generator or the rule
+     */
+    private record Report(String fen, int depth, long leaves, long expected, long nanos, String counter) {
+        boolean passed() {
+            return leaves == expected;
+        }
+    }
+
+    /**
+     * Checks the chess move generator against reference leaf counts, one position per core.
+     * Exits with status 1 if a count is off.
+     *
+     * @param args ([max depth]) ([threads]) ([epd file])
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        List<String> lines = args.length > 2 ? Files.readAllLines(Path.of(args[2])) : Arrays.asList(POSITIONS);
+
+        List<Report> reports = new ArrayList<>();
+        long start = System.nanoTime();
+        try(ForkJoinPool pool = new ForkJoinPool(threads)) {
+            List<Future<Report>> futures = new ArrayList<>();
+            for(String line : lines) {
+                if(!line.isBlank() && !line.startsWith("#")) {
+                    futures.add(pool.submit(() -> run(line, maxDepth, pool)));
+                }
+            }
+            for(Future<Report> future : futures) {
+                reports.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("Invalid perft line: " + e.getCause().getMessage(), e.getCause());
+        }
+        long nanos = System.nanoTime() - start;
+
+        long total = 0;
+        int failed = 0;
+        System.out.println(reports.size() + " positions, " + threads + " threads");
+        for(Report report : reports) {
+            total += report.leaves();
+            failed += report.passed() ? 0 : 1;
+            System.out.printf("%-4s depth %d %12d leaves %8d ms %12d nodes/s  %s%n",
+                    report.passed() ? "ok" : "FAIL", report.depth(), report.leaves(), report.nanos() / 1_000_000,
+                    nodesPerSecond(report.leaves(), report.nanos()), report.fen());
+            if(!report.passed()) {
+                System.out.println("     expected " + report.expected() + ", counted by " + report.counter());
+            }
+        }
+        System.out.printf("total %d leaves in %d ms, %d nodes/s, %d failed%n",
+                total, nanos / 1_000_000, nodesPerSecond(total, nanos), failed);
+        if(failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // every depth up to the deepest one listed and asked for, stopping at the first wrong count;
+    // the reported time is the one of the direct move generator
+    private static Report run(String line, int maxDepth, ForkJoinPool pool) {
+        String[] fields = line.split(";");
+        String fen = fields[0].trim();
+        ChessPosition position = new ChessPosition();
+        position.setFen(fen);
+        Rule rule = RuleImplChess.getRule();
+        GameStatistics game = new GameStatistics(8, 8, "white", "black", rule);
+        rule.getGameRule().initializeExtraInfo(game);
+        ((GameRuleImplChess) rule.getGameRule()).setPosition(game, fen);
+        Report report = null;
+        for(int i = 1; i < fields.length; i++) {
+            String[] entry = fields[i].trim().split("\\s+");
+            int depth = Integer.parseInt(entry[0].substring(1));
+            long expected = Long.parseLong(entry[1]);
+            if(depth > maxDepth) {
+                break;
+            }
+            long start = System.nanoTime();
+            long leaves = position.perft(depth);
+            report = new Report(fen, depth, leaves, expected, System.nanoTime() - start, "ChessPosition");
+            if(!report.passed()) {
+                break;
+            }
+            if(depth <= RULE_DEPTH) {
+                Perft.Result result = Perft.run(rule, game, depth, pool);
+                if(result.leaves() != expected) {
+                    report = new Report(fen, depth, result.leaves(), expected, result.nanos(), "GameRuleImplChess");
+                    break;
+                }
+            }
+        }
+        if(report == null) {
+            throw new IllegalArgumentException(line);
+        }
+        return report;
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
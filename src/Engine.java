@@ -0,0 +1,24 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+import controller.EngineController;
+
+public class Engine {
+
+    /**
+     * Runs the search behind a UCI-like line protocol on stdin and stdout, without the console view.
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+        // flushed once per command by the controller
+        PrintStream output = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        new EngineController(input, output).run();
+    }
+}
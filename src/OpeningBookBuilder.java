@@ -0,0 +1,106 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.enums.Player;
+import model.exceptions.GameException;
+import model.rules.RuleImplReversi;
+import model.rules.gameRule.GameRuleImplReversi;
+import model.rules.gameRule.ReversiOpeningBook;
+import model.rules.inputRule.InputRuleImplReversi;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
+import model.structs.Move;
+
+public class OpeningBookBuilder {
+
+    /**
+     * Builds a reversi opening book from finished games, one game a line in the
+     * move notation of the game (e.g. "3D 3C 3E pass ..."). Unfinished or illegal games are skipped.
+     *
+     * @param args [games file] [book file] ([max plies] [board size])
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.out.println("Usage: OpeningBookBuilder [games file] [book file] ([max plies] [board size])");
+            return;
+        }
+        int maxPlies = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int boardSize = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        BitBoard bitBoard = BitBoard.of(boardSize, boardSize);
+        GameRuleImplReversi gameRule = GameRuleImplReversi.getGameRule();
+
+        // (key, move) -> {games, won games counted twice, draws once}
+        Map<List<Long>, long[]> statistics = new HashMap<>();
+        int used = 0;
+        int skipped = 0;
+        try(BufferedReader reader = Files.newBufferedReader(Path.of(args[0]))) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(line.isBlank()) {
+                    continue;
+                }
+                if(addGame(line.trim().split("\\s+"), bitBoard, gameRule, maxPlies, statistics)) {
+                    used++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+
+        List<ReversiOpeningBook.Entry> entries = new ArrayList<>(statistics.size());
+        statistics.forEach((position, counts) -> entries.add(new ReversiOpeningBook.Entry(
+                position.get(0), position.get(1).intValue(),
+                (int) Math.min(counts[0], Integer.MAX_VALUE), (int) (counts[1] * 500 / counts[0]))));
+        ReversiOpeningBook.write(Path.of(args[1]), bitBoard, entries);
+        System.out.println(entries.size() + " book moves from " + used + " games, " + skipped + " games skipped");
+    }
+
+    // replays a game and counts its first moves, false if the game is illegal or unfinished
+    private static boolean addGame(String[] moves, BitBoard bitBoard, GameRuleImplReversi gameRule,
+                                   int maxPlies, Map<List<Long>, long[]> statistics) {
+        GameStatistics game = new GameStatistics(bitBoard.height, bitBoard.width, "white", "black",
+                RuleImplReversi.getRule());
+        gameRule.initializeExtraInfo(game);
+        List<List<Long>> positions = new ArrayList<>();
+        List<Player> movers = new ArrayList<>();
+        for(String text : moves) {
+            Move move = InputRuleImplReversi.getInputRule().ParseInput(text);
+            if(move == null || game.getWinner() != null) {
+                return false;
+            }
+            Player player = game.getCurrentPlayer();
+            Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+            long[] own = gameRule.getDiscs(game, player);
+            long[] other = gameRule.getDiscs(game, rival);
+            try {
+                if(!gameRule.makeMove(move, game)) {
+                    return false;
+                }
+            } catch (GameException | IllegalArgumentException e) {
+                return false;
+            }
+            if(positions.size() < maxPlies) {
+                int square = move.end.x == 0 && move.end.y == 0 ? -1 : bitBoard.index(move.end);
+                positions.add(List.of(
+                        ReversiOpeningBook.canonicalKey(bitBoard, own, other),
+                        (long) ReversiOpeningBook.canonicalMove(bitBoard, own, other, square)));
+                movers.add(player);
+            }
+        }
+        if(game.getWinner() == null) {
+            return false;
+        }
+        for(int i = 0; i < positions.size(); i++) {
+            long[] counts = statistics.computeIfAbsent(positions.get(i), position -> new long[2]);
+            counts[0]++;
+            counts[1] += game.getWinner() == movers.get(i) ? 2 : game.getWinner() == Player.NONE ? 1 : 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.concurrent.ForkJoinPool;
+
+import model.Board;
+import model.factories.BoardFactory;
+import model.rules.Rule;
+import model.rules.RuleImplBomb;
+import model.rules.RuleImplChess;
+import model.rules.RuleImplGomoku;
+import model.rules.RuleImplKInARow;
+import model.rules.RuleImplLandfill;
+import model.rules.RuleImplReversi;
+import model.search.Perft;
+
+public class PerftBenchmark {
+
+    /**
+     * Runs perft from the start position of a fresh board, one line per depth.
+     *
+     * @param args [rule] [board size] [max depth] ([threads])
+     */
+    public static void main(String[] args) {
+        if(args.length < 3) {
+            System.out.println("Usage: PerftBenchmark [reversi/peace/gomoku/bomb/connect6/pente/tictactoe/chess] [board size] [max depth] ([threads])");
+            return;
+        }
+        Rule rule = switch (args[0].toLowerCase()) {
+            case RuleImplReversi.name -> RuleImplReversi.getRule();
+            case RuleImplLandfill.name -> RuleImplLandfill.getRule();
+            case RuleImplGomoku.name -> RuleImplGomoku.getRule();
+            case RuleImplBomb.name -> RuleImplBomb.getRule();
+            case RuleImplKInARow.GOMOKU_EXACT, RuleImplKInARow.CONNECT6, RuleImplKInARow.PENTE,
+                 RuleImplKInARow.TIC_TAC_TOE -> RuleImplKInARow.getRule(args[0].toLowerCase());
+            case RuleImplChess.name -> RuleImplChess.getRule();
+            default -> throw new IllegalArgumentException("No rule named " + args[0]);
+        };
+        int boardSize = Integer.parseInt(args[1]);
+        int maxDepth = Integer.parseInt(args[2]);
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Board board = BoardFactory
+                .create()
+                .setWhitePlayerName("white")
+                .setBlackPlayerName("black")
+                .setBoardSizeCol(boardSize)
+                .setBoardSizeRow(boardSize)
+                .setRule(rule)
+                .createBoard();
+
+        try(ForkJoinPool pool = new ForkJoinPool(threads)) {
+            System.out.println(board.getBriefInformation() + ", " + threads + " threads");
+            for(int depth = 1; depth <= maxDepth; depth++) {
+                Perft.Result result = Perft.run(rule, board.copyStatistics(), depth, pool);
+                System.out.printf("depth %2d %14d leaves %8d ms %12d nodes/s%n",
+                        depth, result.leaves(), result.nanos() / 1_000_000, result.nodesPerSecond());
+            }
+        }
+    }
+}
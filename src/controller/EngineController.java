@@ -0,0 +1,325 @@
+package controller;
+
+import model.Board;
+import model.enums.Player;
+import model.exceptions.GameException;
+import model.rules.Rule;
+import model.rules.RuleImplBomb;
+import model.rules.RuleImplChess;
+import model.rules.RuleImplGomoku;
+import model.rules.RuleImplKInARow;
+import model.rules.RuleImplLandfill;
+import model.rules.RuleImplReversi;
+import model.rules.gameRule.GameRuleImplChess;
+import model.search.AlphaBetaSearch;
+import model.search.ComputerPlayer;
+import model.search.ParallelSearch;
+import model.search.TranspositionTable;
+import model.structs.GameStatistics;
+import model.structs.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answers a line protocol modelled on UCI, for feeding positions to the search without the console.
+ *
+ * <p>Commands, one per line:
+ * <ul>
+ *     <li>{@code uci}, {@code isready}, {@code ucinewgame}, {@code quit} as in UCI</li>
+ *     <li>{@code setoption name Variant value chess}, any rule name of 'create board';
+ *         {@code BoardSize}, {@code Hash} in MB and {@code Threads} likewise</li>
+ *     <li>{@code position startpos|fen <fen> [moves <move>...]}, moves typed as on the board,
+ *         FEN for chess only</li>
+ *     <li>{@code go [depth n] [movetime ms] [nodes n] [wtime ms btime ms winc ms binc ms]},
+ *         answered by an {@code info} line and {@code bestmove}, {@code (none)} once the game is over
+ *         or if no position was set</li>
+ * </ul>
+ * The search runs on the reading thread, a {@code stop} has nothing to interrupt.
+ * Errors are reported as {@code info string} lines and the engine carries on,
+ * a failed {@code position} leaves no position rather than the last one.
+ *
+ * <p>A position extending the last one only plays the new moves, so a game fed move by move
+ * costs one move per command, and output is flushed once per command rather than per line.
+ */
+public class EngineController {
+
+    private static final String DEFAULT_VARIANT = RuleImplChess.name;
+    private static final int DEFAULT_HASH_MB = 16;
+    /** bytes per transposition table entry */
+    private static final int ENTRY_BYTES = 16;
+    /** a search keeps this share of the remaining clock, plus the increment */
+    private static final int MOVES_TO_GO = 30;
+
+    private final BufferedReader input;
+    private final PrintStream output;
+
+    private Rule rule;
+    private int boardSize = 8;
+    private int hashMegabytes = DEFAULT_HASH_MB;
+    private int threads = 1;
+    private TranspositionTable table;
+    private AlphaBetaSearch search;
+    private ParallelSearch parallelSearch;
+
+    private GameStatistics statistics;
+    // the position command the game was built from and the moves played on it
+    private String positionBase;
+    private final List<String> playedMoves = new ArrayList<>();
+
+    /**
+     * @param input command source
+     * @param output answers, flushed after every command
+     */
+    public EngineController(BufferedReader input, PrintStream output) {
+        this.input = input;
+        this.output = output;
+        this.rule = parseRule(DEFAULT_VARIANT);
+    }
+
+    /**
+     * Answers commands until quit or the end of the input.
+     */
+    public void run() throws IOException {
+        try {
+            String line;
+            while((line = input.readLine()) != null) {
+                boolean running = execute(line.trim());
+                output.flush();
+                if(!running) {
+                    break;
+                }
+            }
+        } finally {
+            closeSearch();
+            output.flush();
+        }
+    }
+
+    /**
+     * Executes a single command.
+     *
+     * @return false if the engine should quit
+     */
+    public boolean execute(String line) {
+        String[] tokens = line.split("\\s+");
+        try {
+            switch (tokens[0]) {
+                case "uci" -> handleUci();
+                case "isready" -> output.println("readyok");
+                case "ucinewgame" -> handleNewGame();
+                case "setoption" -> handleSetOption(tokens);
+                case "position" -> handlePosition(tokens);
+                case "go" -> handleGo(tokens);
+                case "quit" -> {
+                    return false;
+                }
+                case "", "stop" -> { }
+                default -> output.println("info string unknown command " + tokens[0]);
+            }
+        } catch (RuntimeException e) {
+            // a bad line of a batch must not end the engine
+            output.println("info string " + (e.getMessage() == null ? e.toString() : e.getMessage()));
+        }
+        return true;
+    }
+
+    private void handleUci() {
+        output.println("id name Reversi engine");
+        output.println("option name Variant type string default " + DEFAULT_VARIANT);
+        output.println("option name BoardSize type spin default 8 min 3 max " + Board.MAX_BOARD_SIZE);
+        output.println("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max 1024");
+        output.println("option name Threads type spin default 1 min 1 max 256");
+        output.println("uciok");
+    }
+
+    private void handleNewGame() {
+        if(table != null) {
+            table.clear();
+        }
+        statistics = null;
+    }
+
+    // setoption name <name> value <value>
+    private void handleSetOption(String[] tokens) {
+        int value = Arrays.asList(tokens).indexOf("value");
+        if(tokens.length < 3 || !tokens[1].equals("name") || value < 0 || value + 1 >= tokens.length) {
+            throw new IllegalArgumentException("usage: setoption name <name> value <value>");
+        }
+        String name = String.join(" ", Arrays.copyOfRange(tokens, 2, value));
+        String setting = tokens[value + 1];
+        switch (name.toLowerCase()) {
+            case "variant" -> {
+                rule = parseRule(setting);
+                closeSearch();
+            }
+            case "boardsize" -> boardSize = parseNumber(setting);
+            case "hash" -> {
+                hashMegabytes = parseNumber(setting);
+                closeSearch();
+            }
+            case "threads" -> {
+                threads = Math.max(1, parseNumber(setting));
+                closeSearch();
+            }
+            default -> throw new IllegalArgumentException("unknown option " + name);
+        }
+        statistics = null;
+    }
+
+    // position startpos|fen <fen> [moves ...]
+    private void handlePosition(String[] tokens) {
+        int movesAt = Arrays.asList(tokens).indexOf("moves");
+        int baseEnd = movesAt < 0 ? tokens.length : movesAt;
+        if(tokens.length < 2 || !tokens[1].equals("startpos") && !tokens[1].equals("fen")) {
+            throw new IllegalArgumentException("usage: position startpos|fen <fen> [moves <move>...]");
+        }
+        String base = String.join(" ", Arrays.copyOfRange(tokens, 1, baseEnd));
+        List<String> moves = movesAt < 0 ? List.of() : Arrays.asList(tokens).subList(movesAt + 1, tokens.length);
+
+        boolean continues = statistics != null && base.equals(positionBase)
+                && moves.size() >= playedMoves.size() && moves.subList(0, playedMoves.size()).equals(playedMoves);
+        GameStatistics game = statistics;
+        int played = playedMoves.size();
+        // a failing line leaves no position, so a later go cannot answer for another one
+        statistics = null;
+        positionBase = null;
+        playedMoves.clear();
+        if(!continues) {
+            game = newGame(base);
+            played = 0;
+        }
+        for(String text : moves.subList(played, moves.size())) {
+            Move move = rule.getInputRule().ParseInput(text);
+            try {
+                if(move == null || !rule.getGameRule().makeMove(move, game)) {
+                    throw new IllegalArgumentException("invalid move " + text);
+                }
+            } catch (GameException e) {
+                throw new IllegalArgumentException("invalid move " + text + ": " + e.getMessage());
+            }
+        }
+        statistics = game;
+        positionBase = base;
+        playedMoves.addAll(moves);
+    }
+
+    private GameStatistics newGame(String base) {
+        GameStatistics game = new GameStatistics(boardSize(), boardSize(), "white", "black", rule);
+        rule.getGameRule().initializeExtraInfo(game);
+        if(base.startsWith("fen")) {
+            if(!(rule.getGameRule() instanceof GameRuleImplChess chessRule)) {
+                throw new IllegalArgumentException("FEN positions are for chess only");
+            }
+            chessRule.setPosition(game, base.substring("fen".length()).trim());
+        }
+        return game;
+    }
+
+    // go [depth n] [movetime ms] [nodes n] [wtime ms] [btime ms] [winc ms] [binc ms]
+    private void handleGo(String[] tokens) {
+        if(statistics == null) {
+            output.println("info string no position");
+            output.println("bestmove (none)");
+            return;
+        }
+        int depth = AlphaBetaSearch.MAX_DEPTH;
+        long moveTime = 0;
+        long nodes = 0;
+        long[] clock = new long[4];
+        List<String> clockNames = List.of("wtime", "btime", "winc", "binc");
+        for(int i = 1; i + 1 < tokens.length; i += 2) {
+            switch (tokens[i]) {
+                case "depth" -> depth = Math.clamp(parseNumber(tokens[i + 1]), 1, AlphaBetaSearch.MAX_DEPTH);
+                case "movetime" -> moveTime = parseNumber(tokens[i + 1]);
+                case "nodes" -> nodes = parseNumber(tokens[i + 1]);
+                case "wtime", "btime", "winc", "binc" -> clock[clockNames.indexOf(tokens[i])] = parseNumber(tokens[i + 1]);
+                default -> throw new IllegalArgumentException("unknown go parameter " + tokens[i]);
+            }
+        }
+        int side = statistics.getCurrentPlayer() == Player.WHITE ? 0 : 1;
+        if(moveTime == 0 && clock[side] > 0) {
+            moveTime = Math.max(1, clock[side] / MOVES_TO_GO + clock[side + 2]);
+        }
+        if(moveTime == 0 && nodes == 0 && depth == AlphaBetaSearch.MAX_DEPTH) {
+            moveTime = ComputerPlayer.DEFAULT_TIME_MILLIS;
+        }
+
+        AlphaBetaSearch.Result result = statistics.getWinner() != null
+                ? new AlphaBetaSearch.Result(null, 0, 0, 0, 0)
+                : search(moveTime, nodes, depth);
+        if(result.move() == null) {
+            output.println("bestmove (none)");
+            return;
+        }
+        String move = rule.getInputRule().formatMove(result.move());
+        output.println("info depth " + result.depth() + " score " + formatScore(result.score())
+                + " nodes " + result.nodes() + " nps " + result.nodesPerSecond()
+                + " time " + result.nanos() / 1_000_000 + " pv " + move);
+        output.println("bestmove " + move);
+    }
+
+    private AlphaBetaSearch.Result search(long moveTime, long nodes, int depth) {
+        if(table == null) {
+            long entries = (long) hashMegabytes * (1 << 20) / ENTRY_BYTES;
+            int bits = Math.clamp(63 - Long.numberOfLeadingZeros(entries), 1, 26);
+            table = new TranspositionTable(bits);
+            if(threads > 1) {
+                parallelSearch = new ParallelSearch(rule, table, threads);
+            } else {
+                search = new AlphaBetaSearch(rule, table);
+            }
+        }
+        return parallelSearch != null
+                ? parallelSearch.search(statistics, moveTime, nodes, depth)
+                : search.search(statistics, moveTime, nodes, depth);
+    }
+
+    // centipawns or whatever the rule evaluates in, mate in moves for a won or lost game
+    private static String formatScore(int score) {
+        int plies = AlphaBetaSearch.WIN_SCORE - Math.abs(score);
+        if(plies > AlphaBetaSearch.MAX_DEPTH + 1) {
+            return "cp " + score;
+        }
+        int moves = (plies + 1) / 2;
+        return "mate " + (score > 0 ? moves : -moves);
+    }
+
+    private int boardSize() {
+        return Math.clamp(boardSize, rule.getGameRule().getMinBoardSize(), rule.getGameRule().getMaxBoardSize());
+    }
+
+    private void closeSearch() {
+        if(parallelSearch != null) {
+            parallelSearch.close();
+        }
+        parallelSearch = null;
+        search = null;
+        table = null;
+    }
+
+    private static int parseNumber(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(text + " is not a number");
+        }
+    }
+
+    private static Rule parseRule(String name) {
+        return switch (name.toLowerCase()) {
+            case RuleImplReversi.name -> RuleImplReversi.getRule();
+            case RuleImplLandfill.name -> RuleImplLandfill.getRule();
+            case RuleImplGomoku.name -> RuleImplGomoku.getRule();
+            case RuleImplBomb.name -> RuleImplBomb.getRule();
+            case RuleImplKInARow.GOMOKU_EXACT, RuleImplKInARow.CONNECT6, RuleImplKInARow.PENTE,
+                 RuleImplKInARow.TIC_TAC_TOE -> RuleImplKInARow.getRule(name.toLowerCase());
+            case RuleImplChess.name -> RuleImplChess.getRule();
+            default -> throw new IllegalArgumentException("No rule named " + name);
+        };
+    }
+}
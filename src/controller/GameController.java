@@ -4,17 +4,36 @@ import model.Board;
 import model.exceptions.GameException;
 import model.factories.BoardFactory;
 import model.rules.RuleImplBomb;
+import model.rules.RuleImplChess;
 import model.rules.RuleImplGomoku;
+import model.rules.RuleImplGomokuLarge;
+import model.rules.RuleImplKInARow;
 import model.rules.RuleImplLandfill;
 import model.rules.RuleImplReversi;
+import model.rules.gameRule.GameRuleImplBomb;
+import model.rules.gameRule.GameRuleImplGomokuLarge;
+import model.rules.gameRule.GameRuleImplReversi;
+import model.rules.gameRule.GomokuThreatSolver;
+import model.rules.gameRule.KInARowConfig;
+import model.rules.gameRule.ReversiEndgameSolver;
+import model.rules.inputRule.InputRule;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
 import model.structs.Move;
+import model.structs.Point;
 import model.enums.Player;
+import model.search.AlphaBetaSearch;
+import model.search.ParallelSearch;
+import model.search.Perft;
+import model.search.TranspositionTable;
 import view.components.*;
 import view.renderer.Renderer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * GameController: Controlling multi-board states and interaction.
@@ -46,6 +65,11 @@ public class GameController {
 
     private final BoardFactory boardFactory;
 
+    // Analysis, the table is kept between analyses
+    private static final long DEFAULT_ANALYSIS_MILLIS = 3000;
+    private static final int ANALYSIS_TABLE_BITS = 22;
+    private TranspositionTable analysisTable;
+
     // Display
     private final Renderer renderer;
     private final DisplayBlock mainView ;
@@ -128,6 +152,11 @@ public class GameController {
         this.currentBoardIdx = newBoardNo - 1;
         updateBoards(boards, currentBoardIdx);
         showBoard();
+        try {
+            playComputerMoves();
+        } catch (GameException e) {
+            System.out.println(e.getMessage());
+        }
         return true;
     }
 
@@ -152,19 +181,34 @@ public class GameController {
         if(tempMove == null) {
             return false;
         }
-        return placePiece(tempMove);
+        if(!placePiece(tempMove)) {
+            return false;
+        }
+        playComputerMoves();
+        return true;
     }
 
     /**
      * parse players' creating board operation
      *
-     * @param input command "[game type] ([width] [height])"
+     * @param input command "[game type] ([width] [height]) ([ai-white/ai-black])"
      * @return this entity for method chain
      * @throws IllegalArgumentException when input is illegal
      */
     protected GameController parseCreate(String input) throws IllegalArgumentException {
         String[] tokens = input.split("\\s+");
 
+        // parse the computer side, always the last token
+        Player computerPlayer = tokens.length < 2 ? Player.NONE : switch(tokens[tokens.length - 1].toLowerCase()) {
+            case "ai-white" -> Player.WHITE;
+            case "ai-black" -> Player.BLACK;
+            default -> Player.NONE;
+        };
+        boardFactory.setComputerPlayer(computerPlayer);
+        if(computerPlayer != Player.NONE) {
+            tokens = Arrays.copyOf(tokens, tokens.length - 1);
+        }
+
         // parse the rule type
         switch(tokens[0].toLowerCase()) {
             case RuleImplReversi.name:
@@ -179,6 +223,15 @@ public class GameController {
             case RuleImplBomb.name:
                 boardFactory.setRule(RuleImplBomb.getRule());
                 break;
+            case RuleImplKInARow.GOMOKU_EXACT:
+            case RuleImplKInARow.CONNECT6:
+            case RuleImplKInARow.PENTE:
+            case RuleImplKInARow.TIC_TAC_TOE:
+                boardFactory.setRule(RuleImplKInARow.getRule(tokens[0].toLowerCase()));
+                break;
+            case RuleImplChess.name:
+                boardFactory.setRule(RuleImplChess.getRule());
+                break;
             default:
                 throw new IllegalArgumentException("No rule named " + tokens[0] + ". Try 'reversi' or 'peace'.");
         }
@@ -191,31 +244,43 @@ public class GameController {
             return this;
         }
 
-        // if only one size specified, take as a square board
+        int columns;
+        int rows;
         if(tokens.length == 2) {
+            // if only one size specified, take as a square board
             try {
-                boardFactory
-                        .setBoardSizeCol(Integer.parseInt(tokens[1]))
-                        .setBoardSizeRow(Integer.parseInt(tokens[1]));
+                columns = rows = Integer.parseInt(tokens[1]);
             } catch (NumberFormatException e) {
                 throw new IllegalArgumentException("Invalid input: \""+tokens[1]+"\" is not a number.");
             }
-            return this;
+        } else {
+            // if two sizes specified, set.
+            try {
+                columns = Integer.parseInt(tokens[1]);
+                rows = Integer.parseInt(tokens[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid input: \""+tokens[1]+"\" or \""+tokens[2]+"\" is not a number");
+            }
         }
-
-        // if two sizes specified, set.
-        try {
-            boardFactory
-                    .setBoardSizeCol(Integer.parseInt(tokens[1]))
-                    .setBoardSizeRow(Integer.parseInt(tokens[2]));
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid input: \""+tokens[1]+"\" or \""+tokens[2]+"\" is not a number");
+        boardFactory
+                .setBoardSizeCol(columns)
+                .setBoardSizeRow(rows);
+
+        // gomoku beyond the piece grid runs on the sparse board
+        if(tokens[0].equalsIgnoreCase(RuleImplGomoku.name)
+                && Math.max(columns, rows) > Board.MAX_BOARD_SIZE) {
+            boardFactory.setRule(RuleImplGomokuLarge.getRule());
         }
 
         // check size validity
         if(!boardFactory.isLegalSetting()) {
             throw new IllegalArgumentException("Invalid board size.\n" +
-                    "Board size must be between " + Board.MIN_BOARD_SIZE + " and " + Board.MAX_BOARD_SIZE);
+                    "Board size must be between " + Board.MIN_BOARD_SIZE + " and " + Board.MAX_BOARD_SIZE
+                    + ", gomoku up to " + GameRuleImplGomokuLarge.MAX_SPARSE_BOARD_SIZE
+                    + ", tictactoe " + KInARowConfig.TIC_TAC_TOE.minBoardSize()
+                    + " to " + KInARowConfig.TIC_TAC_TOE.maxBoardSize()
+                    + ", bomb from " + GameRuleImplBomb.MIN_BOARD_SIZE
+                    + ", chess 8");
         }
 
         return this;
@@ -328,6 +393,252 @@ public class GameController {
         return true;
     }
 
+    /**
+     * take back the last move of the current board, together with the computer's answer
+     *
+     * @return true if succeeded
+     */
+    protected boolean undoMove() {
+        Board board = boards.get(currentBoardIdx);
+
+        if( !undoSingleMove(board) ) {
+            System.out.println("Nothing to undo");
+            return false;
+        }
+
+        // take back the computer's answer together with the player's move
+        if(board.isComputerTurn()) {
+            undoSingleMove(board);
+        }
+
+        showBoard();
+
+        try {
+            playComputerMoves();
+        } catch (GameException e) {
+            System.out.println(e.getMessage());
+        }
+
+        return true;
+    }
+
+    // takes back one move and the game result it produced
+    private boolean undoSingleMove(Board board) {
+        Player winner = board.getWinner();
+
+        if( !board.undoMove() ) {
+            return false;
+        }
+
+        // the game is running again
+        if(winner != null) {
+            if(winner == Player.WHITE) {
+                whiteWinCount--;
+            } else if(winner == Player.BLACK) {
+                blackWinCount--;
+            }
+            gameOverCount--;
+            updateBoards(boards, currentBoardIdx);
+        }
+
+        return true;
+    }
+
+    /**
+     * let the computer move while it is to move on the current board
+     */
+    private void playComputerMoves() throws GameException {
+        Board board = boards.get(currentBoardIdx);
+        while(board.isComputerTurn()) {
+            AlphaBetaSearch.Result result = board.thinkComputerMove();
+            if(result.move() == null || !placePiece(result.move())) {
+                System.out.println("Computer found no move");
+                return;
+            }
+            System.out.println("Computer plays " + board.getInputRule().formatMove(result.move())
+                    + " (depth " + result.depth() + ", score " + result.score() + ", "
+                    + result.nodes() + " nodes in " + result.nanos() / 1_000_000 + " ms, "
+                    + result.nodesPerSecond() + " nodes/s)");
+        }
+    }
+
+    /**
+     * count the game tree leaves of the current board and report the speed
+     *
+     * @param input depth in plies
+     * @return true if succeeded
+     */
+    protected boolean perft(String input) {
+        int depth;
+        try {
+            depth = Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input: \""+input+"\" is not a number");
+            return false;
+        }
+        if(depth < 1) {
+            System.out.println("Invalid depth: " + depth);
+            return false;
+        }
+        Board board = boards.get(currentBoardIdx);
+        Perft.Result result = Perft.run(board.getRule(), board.copyStatistics(), depth, ForkJoinPool.commonPool());
+        System.out.println("perft " + depth + ": " + result.leaves() + " leaves, "
+                + result.nodes() + " nodes in " + result.nanos() / 1_000_000 + " ms ("
+                + result.nodesPerSecond() + " nodes/s)");
+        return true;
+    }
+
+    /**
+     * solve the reversi endgame of the current board with perfect play
+     *
+     * @param input maximum empty squares, the solver default if empty
+     * @return true if succeeded
+     */
+    protected boolean solve(String input) {
+        int maxEmpties = ReversiEndgameSolver.DEFAULT_EMPTIES_THRESHOLD;
+        if(!input.isEmpty()) {
+            try {
+                maxEmpties = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input: \""+input+"\" is not a number");
+                return false;
+            }
+        }
+        Board board = boards.get(currentBoardIdx);
+        if(!(board.getRule() instanceof RuleImplReversi)) {
+            System.out.println("Only reversi boards can be solved");
+            return false;
+        }
+        if(board.isGameOver()) {
+            System.out.println("Game Over!");
+            return false;
+        }
+
+        GameStatistics statistics = board.copyStatistics();
+        GameRuleImplReversi gameRule = (GameRuleImplReversi) board.getRule().getGameRule();
+        Player player = statistics.getCurrentPlayer();
+        Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+        long[] own = gameRule.getDiscs(statistics, player);
+        long[] other = gameRule.getDiscs(statistics, rival);
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        ReversiEndgameSolver solver = new ReversiEndgameSolver(bitBoard, maxEmpties);
+        if(!solver.canSolve(own, other)) {
+            System.out.println("Too many empty squares: " + solver.countEmpties(own, other)
+                    + " > " + maxEmpties);
+            return false;
+        }
+
+        long start = System.nanoTime();
+        ReversiEndgameSolver.Solution solution = solver.solve(own, other);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        String move = solution.square() < 0 ? "pass"
+                : InputRule.formatPosition(bitBoard.x(solution.square()), bitBoard.y(solution.square()));
+        System.out.println("best move for " + player + ": " + move + ", final disc differential "
+                + (solution.discDifferential() > 0 ? "+" : "") + solution.discDifferential()
+                + " (" + solution.nodes() + " nodes in " + millis + " ms)");
+        return true;
+    }
+
+    /**
+     * search the current board on all cores and report the best move
+     *
+     * @param input thinking time in milliseconds, the default if empty
+     * @return true if succeeded
+     */
+    protected boolean analyze(String input) {
+        long timeMillis = DEFAULT_ANALYSIS_MILLIS;
+        if(!input.isEmpty()) {
+            try {
+                timeMillis = Long.parseLong(input);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input: \""+input+"\" is not a number");
+                return false;
+            }
+        }
+        if(timeMillis <= 0) {
+            System.out.println("Invalid time: " + timeMillis);
+            return false;
+        }
+        Board board = boards.get(currentBoardIdx);
+        if(board.isGameOver()) {
+            System.out.println("Game Over!");
+            return false;
+        }
+        if(analysisTable == null) {
+            analysisTable = new TranspositionTable(ANALYSIS_TABLE_BITS);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        AlphaBetaSearch.Result result;
+        try(ParallelSearch search = new ParallelSearch(board.getRule(), analysisTable, threads)) {
+            result = search.search(board.copyStatistics(), timeMillis, 0, AlphaBetaSearch.MAX_DEPTH);
+        }
+        if(result.move() == null) {
+            System.out.println("No move to analyze");
+            return false;
+        }
+        System.out.println("best move: " + board.getInputRule().formatMove(result.move())
+                + " (depth " + result.depth() + ", score " + result.score() + ", "
+                + result.nodes() + " nodes in " + result.nanos() / 1_000_000 + " ms, "
+                + result.nodesPerSecond() + " nodes/s on " + threads + " threads)");
+        return true;
+    }
+
+    /**
+     * look for a forced win of the player to move on the current gomoku board,
+     * by continuous fours (VCF) or continuous threats (VCT)
+     *
+     * @param input most moves of the winner, the solver default if empty
+     * @param threes true for VCT
+     * @return true if succeeded
+     */
+    protected boolean threatSearch(String input, boolean threes) {
+        int maxDepth = threes ? GomokuThreatSolver.DEFAULT_VCT_DEPTH : GomokuThreatSolver.DEFAULT_VCF_DEPTH;
+        if(!input.isEmpty()) {
+            try {
+                maxDepth = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input: \""+input+"\" is not a number");
+                return false;
+            }
+        }
+        if(maxDepth <= 0) {
+            System.out.println("Invalid depth: " + maxDepth);
+            return false;
+        }
+        Board board = boards.get(currentBoardIdx);
+        if(!(board.getRule() instanceof RuleImplGomoku)) {
+            System.out.println("Only gomoku boards up to " + Board.MAX_BOARD_SIZE + "x" + Board.MAX_BOARD_SIZE + " have threat searches");
+            return false;
+        }
+        if(board.isGameOver()) {
+            System.out.println("Game Over!");
+            return false;
+        }
+
+        GameStatistics statistics = board.copyStatistics();
+        String kind = threes ? "VCT" : "VCF";
+        GomokuThreatSolver.Solution solution = new GomokuThreatSolver(maxDepth, GomokuThreatSolver.DEFAULT_TIME_MILLIS)
+                .solve(statistics, threes);
+        String stats = " (" + solution.nodes() + " nodes in " + solution.nanos() / 1_000_000 + " ms)";
+        if(solution.isWin()) {
+            // rival answers in brackets
+            StringBuilder line = new StringBuilder();
+            for(int i = 0; i < solution.line().size(); i++) {
+                Point point = solution.line().get(i);
+                String position = InputRule.formatPosition(point.x, point.y);
+                line.append(i % 2 == 0 ? " " + position : " (" + position + ")");
+            }
+            System.out.println(kind + " for " + statistics.getCurrentPlayer() + ":" + line + stats);
+        } else if(solution.complete()) {
+            System.out.println("No " + kind + " for " + statistics.getCurrentPlayer()
+                    + " within " + maxDepth + " moves" + stats);
+        } else {
+            System.out.println("No " + kind + " for " + statistics.getCurrentPlayer() + " found in time" + stats);
+        }
+        return true;
+    }
+
     public void updateBoards(ArrayList<Board> boards, int currentBoardIdx) {
         DisplayBlock gameListView = new DisplayBlock();
         gameListView.setChildLayout(ChildLayout.UP_TO_DOWN);
@@ -37,6 +37,12 @@ public class InputController {
         LIST_BOARDS,  // List available boards
         PLACE_PIECE,  // Make a move
         DEMO,       // Load DEMO from the specified file
+        UNDO,       // Take back the last move
+        PERFT,      // Count the game tree of the current board
+        SOLVE,      // Solve the reversi endgame of the current board
+        ANALYZE,    // Search the current board on all cores
+        VCF,        // Look for a win by continuous fours on the current gomoku board
+        VCT,        // Look for a win by continuous threats on the current gomoku board
     }
 
     /**
@@ -106,6 +112,12 @@ public class InputController {
                 case LIST_BOARDS  -> gameController.selectBoards(command.content).listBoards();
                 case PLACE_PIECE  -> gameController.parseMove(command.content).placePiece();
                 case DEMO         -> runDemo(command.content);
+                case UNDO         -> gameController.undoMove();
+                case PERFT        -> gameController.perft(command.content);
+                case SOLVE        -> gameController.solve(command.content);
+                case ANALYZE      -> gameController.analyze(command.content);
+                case VCF          -> gameController.threatSearch(command.content, false);
+                case VCT          -> gameController.threatSearch(command.content, true);
             };
         } catch (IllegalArgumentException | GameException e) {
             System.out.println(e.getMessage());
@@ -188,6 +200,12 @@ public class InputController {
             case "list", "ls" -> handleList(tokens);
             case "quit" -> handleQuit();
             case "demo" -> handleDemo(tokens);
+            case "undo" -> handleUndo(tokens);
+            case "perft" -> handlePerft(tokens);
+            case "solve" -> handleSolve(tokens);
+            case "analyze" -> handleAnalyze(tokens);
+            case "vcf" -> handleThreatSearch(tokens, CommandType.VCF);
+            case "vct" -> handleThreatSearch(tokens, CommandType.VCT);
             case null -> CommandType.ERROR;
             default -> CommandType.NONE;
         };
@@ -254,7 +272,7 @@ public class InputController {
      * {@link CommandType#ERROR} if failed.
      */
     private CommandType handleCreate(Queue<String> tokens) {
-        if(tokens.size() < 2 || tokens.size() > 4 || !tokens.poll().equals("board")) {
+        if(tokens.size() < 2 || tokens.size() > 5 || !tokens.poll().equals("board")) {
             return CommandType.ERROR;
         }
         command.content = String.join(" ", tokens);
@@ -306,6 +324,76 @@ public class InputController {
         return CommandType.DEMO;
     }
 
+    /**
+     * Handler of the 'undo' command
+     *
+     * @return {@link CommandType#UNDO} if succeeded,
+     * {@link CommandType#ERROR} if failed.
+     */
+    private CommandType handleUndo(Queue<String> tokens) {
+        if(!tokens.isEmpty()) {
+            return CommandType.ERROR;
+        }
+        return CommandType.UNDO;
+    }
+
+    /**
+     * Handler of the 'perft' command
+     *
+     * @return {@link CommandType#PERFT} if succeeded,
+     * {@link CommandType#ERROR} if failed.
+     */
+    private CommandType handlePerft(Queue<String> tokens) {
+        if(tokens.size() != 1) {
+            return CommandType.ERROR;
+        }
+        command.content = tokens.poll();
+        return CommandType.PERFT;
+    }
+
+    /**
+     * Handler of the 'solve' command
+     *
+     * @return {@link CommandType#SOLVE} if succeeded,
+     * {@link CommandType#ERROR} if failed.
+     */
+    private CommandType handleSolve(Queue<String> tokens) {
+        if(tokens.size() > 1) {
+            return CommandType.ERROR;
+        }
+        command.content = tokens.isEmpty() ? "" : tokens.poll();
+        return CommandType.SOLVE;
+    }
+
+    /**
+     * Handler of the 'analyze' command
+     *
+     * @return {@link CommandType#ANALYZE} if succeeded,
+     * {@link CommandType#ERROR} if failed.
+     */
+    private CommandType handleAnalyze(Queue<String> tokens) {
+        if(tokens.size() > 1) {
+            return CommandType.ERROR;
+        }
+        command.content = tokens.isEmpty() ? "" : tokens.poll();
+        return CommandType.ANALYZE;
+    }
+
+    /**
+     * Handler of the 'vcf' and 'vct' commands
+     *
+     * @param type {@link CommandType#VCF} or {@link CommandType#VCT}
+     * @return type if succeeded,
+     * {@link CommandType#ERROR} if failed.
+     */
+    private CommandType handleThreatSearch(Queue<String> tokens, CommandType type) {
+        if(tokens.size() > 1) {
+            return CommandType.ERROR;
+        }
+        command.content = tokens.isEmpty() ? "" : tokens.poll();
+        return type;
+    }
+
     /**
      * Show all commands
      *
@@ -321,9 +409,20 @@ public class InputController {
         System.out.println("| quit           |                                        | quit                        |");
         System.out.println("| switch to/goto | board NO                               | switch to the desired board |");
         System.out.println("| move           | row-first position (e.g. 3D)           | place piece at [position]   |");
+        System.out.println("|                | row,column on big gomoku (e.g. 500,501)|                             |");
+        System.out.println("|                | from and to square on chess (e.g. e2e4)| move piece on chess         |");
         System.out.println("| create board   | [game mode] ([column size] [row size]) | create new board            |");
+        System.out.println("|                | (ai-white/ai-black)                    | computer plays one side     |");
+        System.out.println("|                | modes: reversi/peace/gomoku/bomb/      |                             |");
+        System.out.println("|                | gomoku-exact/connect6/pente/tictactoe/ |                             |");
+        System.out.println("|                | chess                                  |                             |");
         System.out.println("| list/ls        | ([mode: game mode/current])            | list the boards.            |");
         System.out.println("| demo           | path                                   | load demo from a file       |");
+        System.out.println("| undo           |                                        | take back the last move     |");
+        System.out.println("| perft          | depth                                  | count the game tree         |");
+        System.out.println("| solve          | ([max empty squares])                  | solve the reversi endgame   |");
+        System.out.println("| analyze        | ([milliseconds])                       | search on all cores         |");
+        System.out.println("| vcf/vct        | ([max depth])                          | find a gomoku forced win    |");
         System.out.println("|                | you can omit `move` or `switch to`     | whatever you aim at         |");
         return true;
     }
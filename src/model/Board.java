@@ -4,6 +4,8 @@ import model.enums.Player;
 import model.exceptions.GameException;
 import model.rules.inputRule.InputRule;
 import model.rules.Rule;
+import model.search.AlphaBetaSearch;
+import model.search.ComputerPlayer;
 import model.structs.GameStatistics;
 import model.structs.Move;
 import view.components.AbstractDisplayBlock;
@@ -33,6 +35,7 @@ public class Board{
     // Game State
     private final Rule rule;
     private final GameStatistics statistics;
+    private final ComputerPlayer computerPlayer;
 
     /**
      * Constructs a new game board.
@@ -42,8 +45,21 @@ public class Board{
      * @throws IllegalArgumentException if parameters are invalid
      */
     public Board(Rule rule, GameStatistics statistics) {
+        this(rule, statistics, null);
+    }
+
+    /**
+     * Constructs a new game board with one side played by the computer.
+     *
+     * @param rule Game rules implementation
+     * @param statistics Game statistics implementation
+     * @param computerPlayer the computer side, null if both sides are human
+     * @throws IllegalArgumentException if parameters are invalid
+     */
+    public Board(Rule rule, GameStatistics statistics, ComputerPlayer computerPlayer) {
         this.rule = rule;
         this.statistics = statistics;
+        this.computerPlayer = computerPlayer;
         this.rule.getGameRule().initializeExtraInfo(this.statistics); /* Initialize game grid according to rules */
 
         // Initial setup
@@ -57,7 +73,8 @@ public class Board{
      * @return String in format "ruleName <height>x<width>"
      */
     public String getBriefInformation() {
-        return rule.getName() + " " + statistics.getHeight() + "x" + statistics.getWidth();
+        return rule.getName() + " " + statistics.getHeight() + "x" + statistics.getWidth()
+                + (computerPlayer == null ? "" : " ai-" + computerPlayer.getPlayer().name().toLowerCase());
     }
 
     /**
@@ -69,6 +86,38 @@ public class Board{
         return rule;
     }
 
+    /**
+     * Gets the computer side of the board.
+     *
+     * @return Computer player, or null if both sides are human
+     */
+    public ComputerPlayer getComputerPlayer() {
+        return computerPlayer;
+    }
+
+    /**
+     * Checks if the computer is to move.
+     *
+     * @return true if the game is running and the side to move is the computer's
+     */
+    public boolean isComputerTurn() {
+        return computerPlayer != null && !isGameOver()
+                && statistics.getCurrentPlayer() == computerPlayer.getPlayer();
+    }
+
+    /**
+     * Lets the computer search its move, the board itself stays untouched.
+     *
+     * @return Search result, its move is null if there is none
+     * @throws IllegalStateException if the board has no computer player
+     */
+    public AlphaBetaSearch.Result thinkComputerMove() {
+        if(computerPlayer == null) {
+            throw new IllegalStateException("No computer player on this board");
+        }
+        return computerPlayer.think(statistics);
+    }
+
     /**
      * Gets the white player's name.
      *
@@ -152,6 +201,31 @@ public class Board{
         return true;
     }
 
+    /**
+     * Takes back the last move.
+     *
+     * @return true if a move was taken back, false if there is none
+     */
+    public boolean undoMove() {
+        if(!rule.getGameRule().unmakeMove(statistics)) {
+            return false;
+        }
+
+        // Update display
+        rule.getDisplayRule().update(statistics, rule);
+
+        return true;
+    }
+
+    /**
+     * Copies the game state for searches and analysis, the board itself stays untouched.
+     *
+     * @return a deep copy of the game statistics
+     */
+    public GameStatistics copyStatistics() {
+        return new GameStatistics(statistics, rule);
+    }
+
     /**
      * Renders the board to the display.
      */
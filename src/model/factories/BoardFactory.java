@@ -1,9 +1,11 @@
 package model.factories;
 
 import model.Board;
+import model.enums.Player;
 import view.components.AlignType;
 import model.rules.Rule;
 import model.rules.RuleImplReversi;
+import model.search.ComputerPlayer;
 import model.structs.GameStatistics;
 
 /**
@@ -31,6 +33,7 @@ public class BoardFactory {
     private int boardSizeCol;
     private int boardSizeRow;
     private Rule rule;
+    private Player computerPlayer;
     private AlignType verticalAlign;
     private AlignType horizontalAlign;
     
@@ -55,6 +58,7 @@ public class BoardFactory {
         verticalAlign = AlignType.BEGIN;
         horizontalAlign = AlignType.BEGIN;
         rule = RuleImplReversi.getRule();
+        computerPlayer = Player.NONE;
     }
 
     /**
@@ -66,8 +70,8 @@ public class BoardFactory {
         return  !whitePlayerName.isEmpty() &&
                 !blackPlayerName.isEmpty() &&
                 !(rule == null) &&
-                (Board.MIN_BOARD_SIZE <= boardSizeCol && boardSizeCol <= Board.MAX_BOARD_SIZE) &&
-                (Board.MIN_BOARD_SIZE <= boardSizeRow && boardSizeRow <= Board.MAX_BOARD_SIZE);
+                (rule.getGameRule().getMinBoardSize() <= boardSizeCol && boardSizeCol <= rule.getGameRule().getMaxBoardSize()) &&
+                (rule.getGameRule().getMinBoardSize() <= boardSizeRow && boardSizeRow <= rule.getGameRule().getMaxBoardSize());
     }
 
     // Fluent interface setters with method chaining
@@ -97,7 +101,7 @@ public class BoardFactory {
     /**
      * Sets the number of columns for the board.
      *
-     * @param boardSizeCol Number of columns (must be within MIN/MAX_BOARD_SIZE)
+     * @param boardSizeCol Number of columns (must be within the rule's minimum and maximum)
      * @return This factory instance for method chaining
      */
     public BoardFactory setBoardSizeCol(int boardSizeCol) {
@@ -118,7 +122,7 @@ public class BoardFactory {
     /**
      * Sets the number of rows for the board.
      *
-     * @param boardSizeRow Number of rows (must be within MIN/MAX_BOARD_SIZE)
+     * @param boardSizeRow Number of rows (must be within the rule's minimum and maximum)
      * @return This factory instance for method chaining
      */
     public BoardFactory setBoardSizeRow(int boardSizeRow) {
@@ -157,6 +161,27 @@ public class BoardFactory {
         return this;
     }
 
+    /**
+     * Sets the side played by the computer.
+     *
+     * @param computerPlayer Computer side, NONE if both sides are human
+     * @return This factory instance for method chaining
+     */
+    public BoardFactory setComputerPlayer(Player computerPlayer) {
+        this.computerPlayer = computerPlayer;
+        return this;
+    }
+
+    /**
+     * Resets both sides to human players (default).
+     *
+     * @return This factory instance for method chaining
+     */
+    public BoardFactory useNoComputerPlayer() {
+        this.computerPlayer = Player.NONE;
+        return this;
+    }
+
     /**
      * Sets vertical alignment of board content.
      *
@@ -213,6 +238,7 @@ public class BoardFactory {
                         boardSizeRow,
                         whitePlayerName,
                         blackPlayerName,
-                        rule));
+                        rule),
+                computerPlayer == Player.NONE ? null : new ComputerPlayer(rule, computerPlayer));
     }
 }
@@ -1,6 +1,7 @@
 package model.pieces;
 
 import model.enums.Player;
+import model.structs.GameStatistics;
 
 public abstract class Piece {
 
@@ -20,5 +21,25 @@ public abstract class Piece {
 
     public abstract void setPiece(Piece piece);
 
+    /**
+     * @return ordinal of the rule's piece type, as kept in the grid cells and the move log, 0 for a plain piece
+     */
+    public int getTypeCode() {
+        return 0;
+    }
+
+    /**
+     * @param code ordinal of the rule's piece type, ignored by plain pieces
+     */
+    public void setTypeCode(int code) {}
+
+    /**
+     * Reads a square of the board into this piece, a view of the cell until the board changes.
+     */
+    public void load(GameStatistics statistics, int x, int y) {
+        setPlayer(statistics.getPlayer(x, y));
+        setTypeCode(statistics.getPieceType(x, y));
+    }
+
     public abstract int getCode();
 }
@@ -18,6 +18,16 @@ public final class PieceImplBomb extends Piece {
         type = BombPieceType.NORMAL;
     }
 
+    @Override
+    public int getTypeCode() {
+        return getType().ordinal();
+    }
+
+    @Override
+    public void setTypeCode(int code) {
+        setType(BombPieceType.values()[code]);
+    }
+
     @Override
     public void setPiece(Piece piece) {
         if(!(piece instanceof PieceImplBomb pieceImplMonochrome)) {
@@ -1,6 +1,7 @@
 package model.pieces;
 
 import model.enums.ChessPieceType;
+import model.enums.Player;
 
 public class PieceImplChess extends Piece {
 
@@ -19,6 +20,16 @@ public class PieceImplChess extends Piece {
         return pieceType;
     }
 
+    @Override
+    public int getTypeCode() {
+        return getPieceType().ordinal();
+    }
+
+    @Override
+    public void setTypeCode(int code) {
+        setPieceType(ChessPieceType.values()[code]);
+    }
+
     @Override
     public void setPiece(Piece piece) {
         if(!(piece instanceof PieceImplChess pieceImplChess)) {
@@ -27,8 +38,20 @@ public class PieceImplChess extends Piece {
         this.pieceType = pieceImplChess.pieceType;
         this.setPlayer(pieceImplChess.getPlayer());
     }
+    /**
+     * @return the FEN letter of the piece, uppercase for white, a space for an empty square
+     */
     @Override
     public int getCode() {
-        return 0;
+        char letter = switch (pieceType) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+            case ROOK -> 'R';
+            case NONE -> ' ';
+        };
+        return getPlayer() == Player.BLACK ? Character.toLowerCase(letter) : letter;
     }
 }
@@ -0,0 +1,42 @@
+package model.rules;
+
+import model.rules.displayRule.DisplayRule;
+import model.rules.displayRule.DisplayRuleImplChess;
+import model.rules.gameRule.GameRule;
+import model.rules.gameRule.GameRuleImplChess;
+import model.rules.inputRule.InputRule;
+import model.rules.inputRule.InputRuleImplChess;
+
+public class RuleImplChess implements Rule {
+
+    private static final RuleImplChess instance = new RuleImplChess();
+
+    public static RuleImplChess getRule() {
+        return instance;
+    }
+
+    private RuleImplChess() {}
+
+    final InputRule inputRule = InputRuleImplChess.getInputRule();
+    final GameRule gameRule = GameRuleImplChess.getGameRule();
+    final DisplayRule displayRule = DisplayRuleImplChess.getDisplayRule();
+
+    @Override
+    public GameRule getGameRule() {
+        return gameRule;
+    }
+
+    @Override
+    public InputRule getInputRule() {
+        return inputRule;
+    }
+
+    @Override
+    public DisplayRule getDisplayRule() {
+        return displayRule;
+    }
+
+    public static final String name ="chess";
+    @Override
+    public String getName() { return name; }
+}
@@ -0,0 +1,44 @@
+package model.rules;
+
+import model.rules.displayRule.DisplayRule;
+import model.rules.displayRule.DisplayRuleImplGomokuLarge;
+import model.rules.gameRule.GameRule;
+import model.rules.gameRule.GameRuleImplGomokuLarge;
+import model.rules.inputRule.InputRule;
+import model.rules.inputRule.InputRuleImplNumeric;
+
+/**
+ * Gomoku beyond {@link model.Board#MAX_BOARD_SIZE}, picked when a gomoku board is created that big.
+ */
+public class RuleImplGomokuLarge implements Rule {
+
+    private static final RuleImplGomokuLarge instance = new RuleImplGomokuLarge();
+
+    public static RuleImplGomokuLarge getRule() {
+        return instance;
+    }
+
+    private RuleImplGomokuLarge() {}
+
+    final InputRule inputRule = InputRuleImplNumeric.getInputRule();
+    final GameRule gameRule = GameRuleImplGomokuLarge.getGameRule();
+    final DisplayRule displayRule = DisplayRuleImplGomokuLarge.getDisplayRule();
+
+    @Override
+    public GameRule getGameRule() {
+        return gameRule;
+    }
+
+    @Override
+    public InputRule getInputRule() {
+        return inputRule;
+    }
+
+    @Override
+    public DisplayRule getDisplayRule() {
+        return displayRule;
+    }
+
+    @Override
+    public String getName() { return RuleImplGomoku.name; }
+}
@@ -0,0 +1,63 @@
+package model.rules;
+
+import model.rules.displayRule.DisplayRule;
+import model.rules.displayRule.DisplayRuleImplGomoku;
+import model.rules.gameRule.GameRule;
+import model.rules.gameRule.GameRuleImplKInARow;
+import model.rules.gameRule.KInARowConfig;
+import model.rules.inputRule.InputRule;
+import model.rules.inputRule.InputRuleImplMonochrome;
+
+import java.util.Map;
+
+/**
+ * The k-in-a-row variants beside gomoku, each a {@link KInARowConfig} on the gomoku board and input.
+ */
+public class RuleImplKInARow implements Rule {
+
+    public static final String GOMOKU_EXACT = "gomoku-exact";
+    public static final String CONNECT6 = "connect6";
+    public static final String PENTE = "pente";
+    public static final String TIC_TAC_TOE = "tictactoe";
+
+    private static final Map<String, RuleImplKInARow> instances = Map.of(
+            GOMOKU_EXACT, new RuleImplKInARow(KInARowConfig.GOMOKU_EXACT),
+            CONNECT6, new RuleImplKInARow(KInARowConfig.CONNECT6),
+            PENTE, new RuleImplKInARow(KInARowConfig.PENTE),
+            TIC_TAC_TOE, new RuleImplKInARow(KInARowConfig.TIC_TAC_TOE));
+
+    /**
+     * @return the variant of that name, null if there is none
+     */
+    public static RuleImplKInARow getRule(String name) {
+        return instances.get(name);
+    }
+
+    private RuleImplKInARow(KInARowConfig config) {
+        this.gameRule = GameRuleImplKInARow.getGameRule(config);
+        this.name = config.name();
+    }
+
+    final InputRule inputRule = InputRuleImplMonochrome.getInputRule();
+    final GameRule gameRule;
+    final DisplayRule displayRule = DisplayRuleImplGomoku.getDisplayRule();
+
+    @Override
+    public GameRule getGameRule() {
+        return gameRule;
+    }
+
+    @Override
+    public InputRule getInputRule() {
+        return inputRule;
+    }
+
+    @Override
+    public DisplayRule getDisplayRule() {
+        return displayRule;
+    }
+
+    private final String name;
+    @Override
+    public String getName() { return name; }
+}
@@ -1,6 +1,7 @@
 package model.rules.displayRule;
 
 import model.pieces.Piece;
+import model.pieces.PieceImplMonochrome;
 import model.rules.Rule;
 import model.structs.GameStatistics;
 import model.structs.Rect;
@@ -71,15 +72,23 @@ public abstract class AbstractDisplayRule implements DisplayRule {
         }
 
         int[][] grid = gridBlock.getGrid();
-        Piece[][] pieceGrid = statistics.getPieceGrid();
+        Piece piece = newPieceView();
 
         for(int y = 1; y <= statistics.getHeight(); y++) {
             for(int x = 1; x <= statistics.getWidth(); x++) {
-                grid[y][x] = pieceGrid[y][x].getCode();
+                piece.load(statistics, x, y);
+                grid[y][x] = piece.getCode();
             }
         }
     }
 
+    /**
+     * A piece of the rule's kind, loaded with one square after another to draw them.
+     */
+    protected Piece newPieceView() {
+        return new PieceImplMonochrome();
+    }
+
     /**
      * Highlights valid moves for the current player.
      */
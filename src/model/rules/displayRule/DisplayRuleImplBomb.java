@@ -1,14 +1,13 @@
 package model.rules.displayRule;
 
 import model.enums.Player;
-import model.exceptions.GameException;
+import model.pieces.Piece;
 import model.pieces.PieceImplBomb;
 import model.pieces.PieceImplMonochrome;
 import model.rules.Rule;
 import model.rules.gameRule.GameRuleImplBomb;
+import model.structs.BitBoard;
 import model.structs.GameStatistics;
-import model.structs.Move;
-import model.structs.Point;
 import model.structs.Rect;
 import view.components.*;
 
@@ -236,26 +235,24 @@ public class DisplayRuleImplBomb extends AbstractDisplayRule {
         }
     }
 
+    @Override
+    protected Piece newPieceView() {
+        return new PieceImplBomb();
+    }
+
     /**
-     * Highlights valid moves for the current player.
+     * Highlights every square a normal stone may go on, read from the mask the rule keeps.
      */
     @Override
     protected void showValidMoves(GameStatistics statistics, Rule rule) {
-        PieceImplBomb piece = new PieceImplBomb();
         if(!(statistics.getView().getChildren().getFirst() instanceof GridBlock gridView)) {
             throw new IllegalArgumentException("The view is not a GridBlock");
         }
         int[][] grid = gridView.getGrid();
-        piece.setPlayer(statistics.getCurrentPlayer());
-        Move move = new Move(new Point(0,0), new Point(0,0), piece);
-        for(move.end.y = 1; move.end.y <= statistics.getHeight(); move.end.y++) {
-            for(move.end.x = 1; move.end.x <= statistics.getWidth(); move.end.x++) {
-                try {
-                    if(rule.getGameRule().placePieceValidationCheck(move, statistics)) {
-                        grid[move.end.y][move.end.x] = PieceImplMonochrome.VALID_MOVE;
-                    }
-                } catch (GameException _) {}
-            }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        long[] validMoves = ((GameRuleImplBomb.BombRecord) statistics.getExtraInfo()).getNormalMoves();
+        for(int i = BitBoard.nextSetBit(validMoves, 0); i >= 0; i = BitBoard.nextSetBit(validMoves, i + 1)) {
+            grid[bitBoard.y(i)][bitBoard.x(i)] = PieceImplMonochrome.VALID_MOVE;
         }
     }
 }
@@ -0,0 +1,80 @@
+package model.rules.displayRule;
+
+import model.enums.Player;
+import model.pieces.Piece;
+import model.pieces.PieceImplChess;
+import model.pieces.PieceImplMonochrome;
+import model.rules.Rule;
+import model.rules.gameRule.ChessPosition;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
+import view.components.*;
+
+/**
+ * Chess board with ranks 8 to 1 down the side and files a to h along the top,
+ * pieces shown by their FEN letters, uppercase for white.
+ */
+public class DisplayRuleImplChess extends DisplayRuleImplGomoku {
+
+    private static final DisplayRule INSTANCE = new DisplayRuleImplChess();
+
+    public static DisplayRule getDisplayRule() {
+        return INSTANCE;
+    }
+
+    @Override
+    protected AbstractDisplayBlock buildGrid(GameStatistics statistics) {
+        AbstractDisplayBlock gridBlock = initializeGrid(statistics.getHeight(), statistics.getWidth());
+        if(gridBlock instanceof GridBlock chessGrid) {
+            int[][] grid = chessGrid.getGrid();
+            for(int y = 1; y <= statistics.getHeight(); y++) {
+                grid[y][0] = '0' + statistics.getHeight() + 1 - y;
+            }
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                grid[0][x] = 'a' + x - 1;
+            }
+        }
+        return gridBlock;
+    }
+
+    @Override
+    protected Piece newPieceView() {
+        return new PieceImplChess();
+    }
+
+    /**
+     * Marks the empty squares a piece can move to, pieces that can be taken stay in view.
+     */
+    @Override
+    protected void showValidMoves(GameStatistics statistics, Rule rule) {
+        if(!statistics.hasGrid()) {
+            return;
+        }
+        if(!(statistics.getView().getChildren().getFirst() instanceof GridBlock gridView)) {
+            throw new IllegalArgumentException("The view is not a GridBlock");
+        }
+        int[][] grid = gridView.getGrid();
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        long[] validMoves = rule.getGameRule().getValidMoves(statistics);
+        for(int i = BitBoard.nextSetBit(validMoves, 0); i >= 0; i = BitBoard.nextSetBit(validMoves, i + 1)) {
+            if(statistics.getPlayer(bitBoard.x(i), bitBoard.y(i)) == Player.NONE) {
+                grid[bitBoard.y(i)][bitBoard.x(i)] = PieceImplMonochrome.VALID_MOVE;
+            }
+        }
+    }
+
+    /**
+     * Adds a check warning to the current player.
+     */
+    @Override
+    protected void displayPlayerInfo(GameStatistics statistics, Rule rule) {
+        super.displayPlayerInfo(statistics, rule);
+        if(!(statistics.getView().getChildren().get(1) instanceof DisplayBlock playerView)) {
+            throw new IllegalArgumentException("The player view is not a DisplayBlock");
+        }
+        if(statistics.getExtraInfo() instanceof ChessPosition position && position.inCheck()
+                && playerView.getChildren().get(3) instanceof TextBlock textBlock) {
+            textBlock.setText("Current Player: " + statistics.getCurrentPlayer().name().toLowerCase() + ", in check");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package model.rules.displayRule;
+
+import model.pieces.PieceImplMonochrome;
+import model.rules.Rule;
+import model.rules.gameRule.GameRuleImplGomokuLarge;
+import model.structs.GameStatistics;
+import model.structs.MoveLog;
+import model.structs.StoneGrid;
+import view.components.*;
+
+/**
+ * Shows a window of at most {@value #VIEWPORT_SIZE} squares a side of a large gomoku board,
+ * centred on the last move. Labels carry the last digit of the row and column,
+ * the stats list the rows and columns in view.
+ */
+public class DisplayRuleImplGomokuLarge extends DisplayRuleImplGomoku {
+
+    private static final DisplayRule INSTANCE = new DisplayRuleImplGomokuLarge();
+
+    public static DisplayRule getDisplayRule() {
+        return INSTANCE;
+    }
+
+    /** largest number of rows and columns in view */
+    public static final int VIEWPORT_SIZE = 15;
+
+    @Override
+    public boolean buildView(GameStatistics statistics, Rule rule) {
+        super.buildView(statistics, rule);
+        if(!(statistics.getView().getChildren().get(1) instanceof DisplayBlock statsView)) {
+            throw new IllegalArgumentException("The player view is not a DisplayBlock");
+        }
+        statsView.addChild(new TextBlock("View"));
+        return true;
+    }
+
+    @Override
+    protected AbstractDisplayBlock buildGrid(GameStatistics statistics) {
+        return initializeGrid(
+                Math.min(statistics.getHeight(), VIEWPORT_SIZE),
+                Math.min(statistics.getWidth(), VIEWPORT_SIZE));
+    }
+
+    /**
+     * Moves the viewport to the last move and copies the visible squares only.
+     */
+    @Override
+    protected void updateBoard(GameStatistics statistics) {
+        if(!(statistics.getView().getChildren().getFirst() instanceof GridBlock gridBlock)) {
+            throw new IllegalArgumentException("The view is not a GridBlock");
+        }
+        int[][] grid = gridBlock.getGrid();
+        int rows = grid.length - 1;
+        int columns = grid[0].length - 1;
+        MoveLog moves = statistics.getMoves();
+        int centreX = moves.isEmpty() ? (statistics.getWidth() + 1) / 2 : moves.x(moves.last());
+        int centreY = moves.isEmpty() ? (statistics.getHeight() + 1) / 2 : moves.y(moves.last());
+        int originX = Math.clamp(centreX - columns / 2, 1, statistics.getWidth() - columns + 1);
+        int originY = Math.clamp(centreY - rows / 2, 1, statistics.getHeight() - rows + 1);
+        gridBlock.setOrigin(originX, originY);
+
+        StoneGrid stoneGrid = GameRuleImplGomokuLarge.getGameRule().getStoneGrid(statistics);
+        for(int row = 1; row <= rows; row++) {
+            grid[row][0] = '0' + (originY + row - 1) % 10;
+        }
+        for(int column = 1; column <= columns; column++) {
+            grid[0][column] = '0' + (originX + column - 1) % 10;
+        }
+        for(int row = 1; row <= rows; row++) {
+            for(int column = 1; column <= columns; column++) {
+                grid[row][column] = switch (stoneGrid.get(originX + column - 1, originY + row - 1)) {
+                    case WHITE -> PieceImplMonochrome.WHITE_PIECE;
+                    case BLACK -> PieceImplMonochrome.BLACK_PIECE;
+                    default -> PieceImplMonochrome.NONE_PIECE;
+                };
+            }
+        }
+    }
+
+    /**
+     * Every empty square is open, nothing is highlighted.
+     */
+    @Override
+    protected void showValidMoves(GameStatistics statistics, Rule rule) {}
+
+    @Override
+    protected void displayPlayerInfo(GameStatistics statistics, Rule rule) {
+        super.displayPlayerInfo(statistics, rule);
+        displayViewport(statistics);
+    }
+
+    @Override
+    protected void displayWinnerInfo(GameStatistics statistics, Rule rule) {
+        super.displayWinnerInfo(statistics, rule);
+        displayViewport(statistics);
+    }
+
+    // rows and columns in view, below the player info
+    private void displayViewport(GameStatistics statistics) {
+        if(!(statistics.getView().getChildren().get(1) instanceof DisplayBlock playerView)
+                || !(playerView.getChildren().get(5) instanceof TextBlock textBlock)
+                || !(statistics.getView().getChildren().getFirst() instanceof GridBlock gridBlock)) {
+            throw new IllegalArgumentException("Unexpected view layout");
+        }
+        int[][] grid = gridBlock.getGrid();
+        textBlock.setText("Rows " + gridBlock.getOriginY() + "-" + (gridBlock.getOriginY() + grid.length - 2)
+                + ", columns " + gridBlock.getOriginX() + "-" + (gridBlock.getOriginX() + grid[0].length - 2));
+    }
+}
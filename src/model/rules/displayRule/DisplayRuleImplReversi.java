@@ -1,13 +1,10 @@
 package model.rules.displayRule;
 
 import model.enums.Player;
-import model.exceptions.GameException;
-import model.pieces.Piece;
 import model.pieces.PieceImplMonochrome;
 import model.rules.Rule;
+import model.structs.BitBoard;
 import model.structs.GameStatistics;
-import model.structs.Move;
-import model.structs.Point;
 import model.structs.Rect;
 import view.components.*;
 
@@ -181,21 +178,17 @@ public class DisplayRuleImplReversi extends AbstractDisplayRule {
      */
     @Override
     protected void showValidMoves(GameStatistics statistics, Rule rule) {
-        Piece piece = new PieceImplMonochrome();
+        if(!statistics.hasGrid()) {
+            return;
+        }
         if(!(statistics.getView().getChildren().getFirst() instanceof GridBlock gridView)) {
             throw new IllegalArgumentException("The view is not a GridBlock");
         }
         int[][] grid = gridView.getGrid();
-        piece.setPlayer(statistics.getCurrentPlayer());
-        Move move = new Move(new Point(0,0), new Point(0,0), piece);
-        for(move.end.y = 1; move.end.y <= statistics.getHeight(); move.end.y++) {
-            for(move.end.x = 1; move.end.x <= statistics.getWidth(); move.end.x++) {
-                try {
-                    if(rule.getGameRule().placePieceValidationCheck(move, statistics)) {
-                        grid[move.end.y][move.end.x] = PieceImplMonochrome.VALID_MOVE;
-                    }
-                } catch (GameException _) {}
-            }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        long[] validMoves = rule.getGameRule().getValidMoves(statistics);
+        for(int i = BitBoard.nextSetBit(validMoves, 0); i >= 0; i = BitBoard.nextSetBit(validMoves, i + 1)) {
+            grid[bitBoard.y(i)][bitBoard.x(i)] = PieceImplMonochrome.VALID_MOVE;
         }
     }
 }
@@ -2,6 +2,13 @@ package model.rules.gameRule;
 
 import model.enums.GameType;
 import model.pieces.PieceImplMonochrome;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
+import model.structs.Move;
+import model.structs.Point;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class AbstractGameRuleMonochrome implements GameRule {
 
@@ -10,13 +17,18 @@ public abstract class AbstractGameRuleMonochrome implements GameRule {
         return GameType.PLACE_PIECE;
     }
 
-    public PieceImplMonochrome[][] basicInitializeGrid(int height, int width){
-        PieceImplMonochrome[][] pieceGrid = new PieceImplMonochrome[height+2][width+2];
-        for(int i = 0; i < height+2; i++) {
-            for(int j = 0; j < width+2; j++) {
-                pieceGrid[i][j] = new PieceImplMonochrome();
-            }
+    /**
+     * Turns a mask of valid squares into placing moves.
+     */
+    protected List<Move> movesFromMask(long[] mask, GameStatistics statistics) {
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        List<Move> moves = new ArrayList<>(BitBoard.bitCount(mask));
+        for(int i = BitBoard.nextSetBit(mask, 0); i >= 0; i = BitBoard.nextSetBit(mask, i + 1)) {
+            moves.add(new Move(
+                    new Point(0,0),
+                    new Point(bitBoard.x(i), bitBoard.y(i)),
+                    new PieceImplMonochrome()));
         }
-        return pieceGrid;
+        return moves;
     }
 }
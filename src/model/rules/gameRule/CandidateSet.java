@@ -0,0 +1,121 @@
+package model.rules.gameRule;
+
+import model.structs.BitBoard;
+
+import java.util.Arrays;
+
+/**
+ * Empty squares near a stone, kept move by move for k-in-a-row boards.
+ *
+ * <p>A square is a candidate while it is empty and some stone lies within
+ * {@link #RADIUS} squares of it in both directions. Every square counts the stones
+ * around it, so a stone placed or taken back touches only its own neighbourhood.
+ * Before the first stone every empty square is a candidate.
+ *
+ * <p>An instance belongs to one game, copies share the neighbourhood table.
+ */
+public final class CandidateSet {
+
+    /** how far from a stone a square stays a candidate */
+    public static final int RADIUS = 2;
+
+    private final BitBoard bitBoard;
+    /** squares within the radius of each square, itself excluded */
+    private final int[][] neighbours;
+
+    private final int[] nearStones;
+    private final long[] empty;
+    private final long[] candidates;
+    private int stones;
+
+    /**
+     * Starts with every square empty and no stone on the board.
+     */
+    public CandidateSet(BitBoard bitBoard) {
+        this.bitBoard = bitBoard;
+        this.neighbours = new int[bitBoard.size][];
+        int[] buffer = new int[(2 * RADIUS + 1) * (2 * RADIUS + 1)];
+        for(int y = 1; y <= bitBoard.height; y++) {
+            for(int x = 1; x <= bitBoard.width; x++) {
+                int count = 0;
+                for(int ny = Math.max(1, y - RADIUS); ny <= Math.min(bitBoard.height, y + RADIUS); ny++) {
+                    for(int nx = Math.max(1, x - RADIUS); nx <= Math.min(bitBoard.width, x + RADIUS); nx++) {
+                        if(nx != x || ny != y) {
+                            buffer[count++] = bitBoard.index(nx, ny);
+                        }
+                    }
+                }
+                neighbours[bitBoard.index(x, y)] = Arrays.copyOf(buffer, count);
+            }
+        }
+        this.nearStones = new int[bitBoard.size];
+        this.empty = bitBoard.full().clone();
+        this.candidates = bitBoard.newMask();
+        this.stones = 0;
+    }
+
+    public CandidateSet(CandidateSet source) {
+        this.bitBoard = source.bitBoard;
+        this.neighbours = source.neighbours;
+        this.nearStones = source.nearStones.clone();
+        this.empty = source.empty.clone();
+        this.candidates = source.candidates.clone();
+        this.stones = source.stones;
+    }
+
+    /**
+     * @return candidate squares in the {@link BitBoard} layout of the board, a copy
+     */
+    public long[] getCandidates() {
+        return stones == 0 ? empty.clone() : candidates.clone();
+    }
+
+    /**
+     * @return squares able to take a stone, read only
+     */
+    public long[] getEmpty() {
+        return empty;
+    }
+
+    /**
+     * Marks a square as unable to take a stone, either filled or blocked.
+     */
+    public void fill(int square) {
+        BitBoard.clear(empty, square);
+        BitBoard.clear(candidates, square);
+    }
+
+    /**
+     * Marks a square as able to take a stone again.
+     */
+    public void vacate(int square) {
+        BitBoard.set(empty, square);
+        if(nearStones[square] > 0) {
+            BitBoard.set(candidates, square);
+        }
+    }
+
+    /**
+     * Counts a stone in the neighbourhood of its square, the square itself is filled separately.
+     */
+    public void addStone(int square) {
+        stones++;
+        for(int neighbour : neighbours[square]) {
+            if(nearStones[neighbour]++ == 0 && BitBoard.get(empty, neighbour)) {
+                BitBoard.set(candidates, neighbour);
+            }
+        }
+    }
+
+    /**
+     * Takes a stone out of the neighbourhood of its square, the square itself is vacated separately.
+     */
+    public void removeStone(int square) {
+        stones--;
+        for(int neighbour : neighbours[square]) {
+            if(--nearStones[neighbour] == 0) {
+                BitBoard.clear(candidates, neighbour);
+            }
+        }
+    }
+}
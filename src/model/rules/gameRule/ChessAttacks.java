@@ -0,0 +1,193 @@
+package model.rules.gameRule;
+
+import java.util.SplittableRandom;
+
+/**
+ * Attack tables of the 8x8 chess board, square (y-1)*8 + (x-1) as in the {@link model.structs.BitBoard}
+ * layout: a8 is square 0, h1 square 63.
+ *
+ * <p>Sliding attacks come from magic bitboards. The blockers that matter to a square are the
+ * squares of its rays short of the edge; multiplied by the magic of the square, their top bits
+ * index a table holding the attacks of every blocker subset. Magics are searched at class load
+ * from fixed seeds, every run builds the same tables.
+ */
+public final class ChessAttacks {
+
+    public static final long[] KNIGHT = new long[64];
+    public static final long[] KING = new long[64];
+    /** squares attacked by a pawn, white pawns first, white moving towards square 0 */
+    public static final long[][] PAWN = new long[2][64];
+    /** squares strictly between two squares on a line, 0 if they are not on one */
+    public static final long[][] BETWEEN = new long[64][64];
+    /** the whole line through two squares, both included, 0 if they are not on one */
+    public static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    /** seeds per rank, picked offline for short searches, as Stockfish does */
+    private static final int[] MAGIC_SEEDS = {2948, 1385, 1865, 1097, 926, 1450, 1489, 114};
+
+    private static final Magics ROOK = new Magics(ROOK_DIRECTIONS);
+    private static final Magics BISHOP = new Magics(BISHOP_DIRECTIONS);
+
+    static {
+        for(int rank = 0; rank < 8; rank++) {
+            SplittableRandom random = new SplittableRandom(MAGIC_SEEDS[rank]);
+            for(int square = rank * 8; square < rank * 8 + 8; square++) {
+                ROOK.findMagic(square, random);
+            }
+            for(int square = rank * 8; square < rank * 8 + 8; square++) {
+                BISHOP.findMagic(square, random);
+            }
+        }
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        for(int square = 0; square < 64; square++) {
+            KNIGHT[square] = steps(square, knightSteps);
+            KING[square] = steps(square, kingSteps);
+            PAWN[0][square] = steps(square, new int[][]{{-1, -1}, {1, -1}});
+            PAWN[1][square] = steps(square, new int[][]{{-1, 1}, {1, 1}});
+        }
+        for(int from = 0; from < 64; from++) {
+            for(int[][] directions : new int[][][]{ROOK_DIRECTIONS, BISHOP_DIRECTIONS}) {
+                for(int[] direction : directions) {
+                    int[][] single = {direction};
+                    int[][] opposite = {{-direction[0], -direction[1]}};
+                    long ray = slide(from, 0, single);
+                    long line = ray | slide(from, 0, opposite) | 1L << from;
+                    for(long rest = ray; rest != 0; rest &= rest - 1) {
+                        int to = Long.numberOfTrailingZeros(rest);
+                        BETWEEN[from][to] = ray & slide(to, 0, opposite);
+                        LINE[from][to] = line;
+                    }
+                }
+            }
+        }
+    }
+
+    private ChessAttacks() {}
+
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK.attacks(square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP.attacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return ROOK.attacks(square, occupied) | BISHOP.attacks(square, occupied);
+    }
+
+    /**
+     * Magic tables of one sliding piece, every square packed in a single attack table.
+     */
+    private static final class Magics {
+        private final int[][] directions;
+        private final long[] masks = new long[64];
+        private final long[] magics = new long[64];
+        private final int[] shifts = new int[64];
+        private final int[] offsets = new int[64];
+        private final long[] table;
+
+        private Magics(int[][] directions) {
+            this.directions = directions;
+            int size = 0;
+            for(int square = 0; square < 64; square++) {
+                masks[square] = relevant(square, directions);
+                shifts[square] = 64 - Long.bitCount(masks[square]);
+                offsets[square] = size;
+                size += 1 << Long.bitCount(masks[square]);
+            }
+            table = new long[size];
+        }
+
+        private long attacks(int square, long occupied) {
+            return table[offsets[square] + (int) ((occupied & masks[square]) * magics[square] >>> shifts[square])];
+        }
+
+        // tries sparse random numbers until one maps every blocker subset without a harmful collision
+        private void findMagic(int square, SplittableRandom random) {
+            long mask = masks[square];
+            int count = 1 << Long.bitCount(mask);
+            long[] blockers = new long[count];
+            long[] attacks = new long[count];
+            long subset = 0;
+            for(int i = 0; i < count; i++) {
+                blockers[i] = subset;
+                attacks[i] = slide(square, subset, directions);
+                subset = (subset - mask) & mask;
+            }
+            long[] used = new long[count];
+            int[] tried = new int[count];
+            for(int attempt = 1; ; attempt++) {
+                long magic = random.nextLong() & random.nextLong() & random.nextLong();
+                if(Long.bitCount((mask * magic) >>> 56) < 6) {
+                    continue;
+                }
+                boolean found = true;
+                for(int i = 0; i < count && found; i++) {
+                    int index = (int) (blockers[i] * magic >>> shifts[square]);
+                    if(tried[index] != attempt) {
+                        tried[index] = attempt;
+                        used[index] = attacks[i];
+                    } else {
+                        found = used[index] == attacks[i];
+                    }
+                }
+                if(found) {
+                    magics[square] = magic;
+                    System.arraycopy(used, 0, table, offsets[square], count);
+                    return;
+                }
+            }
+        }
+    }
+
+    // the squares a piece reaches along its rays, each ray stopping on the first blocker
+    private static long slide(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for(int[] direction : directions) {
+            int x = (square & 7) + direction[0];
+            int y = (square >>> 3) + direction[1];
+            for(; x >= 0 && x < 8 && y >= 0 && y < 8; x += direction[0], y += direction[1]) {
+                long bit = 1L << (y * 8 + x);
+                attacks |= bit;
+                if((occupied & bit) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    // ray squares short of the edge, a blocker on the last square of a ray changes nothing
+    private static long relevant(int square, int[][] directions) {
+        long mask = 0;
+        for(int[] direction : directions) {
+            int x = (square & 7) + direction[0];
+            int y = (square >>> 3) + direction[1];
+            for(; inside(x + direction[0]) && inside(y + direction[1]); x += direction[0], y += direction[1]) {
+                mask |= 1L << (y * 8 + x);
+            }
+        }
+        return mask;
+    }
+
+    private static boolean inside(int coordinate) {
+        return coordinate >= 0 && coordinate < 8;
+    }
+
+    private static long steps(int square, int[][] steps) {
+        long targets = 0;
+        for(int[] step : steps) {
+            int x = (square & 7) + step[0];
+            int y = (square >>> 3) + step[1];
+            if(inside(x) && inside(y)) {
+                targets |= 1L << (y * 8 + x);
+            }
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,711 @@
+package model.rules.gameRule;
+
+import model.enums.ChessPieceType;
+import model.enums.Player;
+import model.structs.Zobrist;
+
+import java.util.Arrays;
+
+import static model.rules.gameRule.ChessAttacks.BETWEEN;
+import static model.rules.gameRule.ChessAttacks.KING;
+import static model.rules.gameRule.ChessAttacks.KNIGHT;
+import static model.rules.gameRule.ChessAttacks.LINE;
+import static model.rules.gameRule.ChessAttacks.PAWN;
+import static model.rules.gameRule.ChessAttacks.bishopAttacks;
+import static model.rules.gameRule.ChessAttacks.rookAttacks;
+
+/**
+ * Chess position on twelve bitboards, one per color and piece type, with a mailbox beside them.
+ *
+ * <p>Squares follow {@link ChessAttacks}: a8 is 0, h1 is 63, white plays up the board towards 0.
+ * A piece is coded color * 6 + type, {@link #EMPTY} for an empty square. A move is an int:
+ * from | to << 6 | flags << 12, see {@link #QUIET} and the flags after it.
+ *
+ * <p>Move generation is legal from the start. Checkers give a mask of the squares that stop the
+ * check, pinned pieces are held to the line of their king, the king is tried against the attacks
+ * on the board without itself. Only en passant, which takes two pieces off one rank, is tested by
+ * looking at the king after the move. Moves are made and taken back on an internal history,
+ * which also finds repetitions.
+ *
+ * <p>The key is a Zobrist key of pieces, castling rights and the en passant file. The side to move is
+ * left out, {@link model.structs.GameStatistics} keeps it in the hash of the game.
+ *
+ * <p>An instance belongs to one game, it must not be shared between threads.
+ */
+public final class ChessPosition {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN_TYPE = 0;
+    public static final int KNIGHT_TYPE = 1;
+    public static final int BISHOP_TYPE = 2;
+    public static final int ROOK_TYPE = 3;
+    public static final int QUEEN_TYPE = 4;
+    public static final int KING_TYPE = 5;
+    public static final int EMPTY = -1;
+
+    /** move flags: a plain move, then the special ones */
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    /** capture bit, alone or with a promotion */
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    /** promotion bit, the low two bits hold the piece: knight, bishop, rook, queen */
+    public static final int PROMOTION = 8;
+
+    /** more than the most legal moves of any position */
+    public static final int MAX_MOVES = 256;
+
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+    private static final ChessPieceType[] PIECE_TYPES = {
+            ChessPieceType.PAWN, ChessPieceType.KNIGHT, ChessPieceType.BISHOP,
+            ChessPieceType.ROOK, ChessPieceType.QUEEN, ChessPieceType.KING};
+    private static final int[] VALUE = {100, 320, 330, 500, 900, 0};
+
+    private static final int WHITE_KING_SIDE = 1;
+    private static final int WHITE_QUEEN_SIDE = 2;
+    private static final int BLACK_KING_SIDE = 4;
+    private static final int BLACK_QUEEN_SIDE = 8;
+    /** castling rights kept when a piece leaves or reaches a square */
+    private static final int[] CASTLE_MASK = new int[64];
+    private static final long[][] PIECE_KEYS = new long[12][64];
+
+    static {
+        Arrays.fill(CASTLE_MASK, 15);
+        CASTLE_MASK[60] = ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE) & 15;
+        CASTLE_MASK[63] = ~WHITE_KING_SIDE & 15;
+        CASTLE_MASK[56] = ~WHITE_QUEEN_SIDE & 15;
+        CASTLE_MASK[4] = ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE) & 15;
+        CASTLE_MASK[7] = ~BLACK_KING_SIDE & 15;
+        CASTLE_MASK[0] = ~BLACK_QUEEN_SIDE & 15;
+        for(int piece = 0; piece < 12; piece++) {
+            for(int square = 0; square < 64; square++) {
+                PIECE_KEYS[piece][square] = Zobrist.piece(square, player(piece), pieceType(piece).ordinal());
+            }
+        }
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final int[] board = new int[64];
+    private int side;
+    private int castling;
+    /** square a pawn passed over on the last move, -1 if none */
+    private int enPassant;
+    private int halfmoves;
+    private int fullmoves;
+    private long key;
+
+    // one entry per made move: the move, the state it overwrote and the key before it
+    private int ply;
+    private int[] moveHistory = new int[64];
+    private int[] stateHistory = new int[64];
+    private long[] keyHistory = new long[64];
+
+    /** move lists of perft, one per remaining depth */
+    private int[][] perftMoves = new int[0][];
+
+    /**
+     * Sets up the start position.
+     */
+    public ChessPosition() {
+        setFen(START_FEN);
+    }
+
+    public ChessPosition(ChessPosition source) {
+        System.arraycopy(source.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(source.colors, 0, colors, 0, colors.length);
+        System.arraycopy(source.board, 0, board, 0, board.length);
+        this.occupied = source.occupied;
+        this.side = source.side;
+        this.castling = source.castling;
+        this.enPassant = source.enPassant;
+        this.halfmoves = source.halfmoves;
+        this.fullmoves = source.fullmoves;
+        this.key = source.key;
+        this.ply = source.ply;
+        this.moveHistory = source.moveHistory.clone();
+        this.stateHistory = source.stateHistory.clone();
+        this.keyHistory = source.keyHistory.clone();
+    }
+
+    public static int move(int from, int to, int flags) {
+        return from | to << 6 | flags << 12;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    public static int flags(int move) {
+        return move >>> 12;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    /**
+     * @return the piece type promoted to, {@link #EMPTY} if the move is no promotion
+     */
+    public static int promotion(int move) {
+        return (flags(move) & PROMOTION) != 0 ? KNIGHT_TYPE + (flags(move) & 3) : EMPTY;
+    }
+
+    public static int color(int piece) {
+        return piece / 6;
+    }
+
+    public static int type(int piece) {
+        return piece % 6;
+    }
+
+    public static Player player(int piece) {
+        return color(piece) == WHITE ? Player.WHITE : Player.BLACK;
+    }
+
+    public static ChessPieceType pieceType(int piece) {
+        return PIECE_TYPES[type(piece)];
+    }
+
+    /**
+     * @return the type of a {@link ChessPieceType}, {@link #EMPTY} for none
+     */
+    public static int type(ChessPieceType pieceType) {
+        return Arrays.asList(PIECE_TYPES).indexOf(pieceType);
+    }
+
+    /**
+     * @return the piece on a square, {@link #EMPTY} if there is none
+     */
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public int getSide() {
+        return side;
+    }
+
+    public int getCastling() {
+        return castling;
+    }
+
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    public int getHalfmoves() {
+        return halfmoves;
+    }
+
+    public int getFullmoves() {
+        return fullmoves;
+    }
+
+    /**
+     * @return key of pieces, castling rights and en passant file, without the side to move
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Replaces the position and clears the history.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public void setFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if(fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        Arrays.fill(pieces, 0);
+        Arrays.fill(colors, 0);
+        Arrays.fill(board, EMPTY);
+        occupied = 0;
+        key = 0;
+        ply = 0;
+        int square = 0;
+        for(char c : fields[0].toCharArray()) {
+            if(c == '/') {
+                if(square % 8 != 0) {
+                    throw new IllegalArgumentException("Invalid FEN rank: " + fields[0]);
+                }
+            } else if(c >= '1' && c <= '8') {
+                square += c - '0';
+            } else if(PIECE_LETTERS.indexOf(c) >= 0 && square < 64) {
+                addPiece(square++, PIECE_LETTERS.indexOf(c));
+            } else {
+                throw new IllegalArgumentException("Invalid FEN board: " + fields[0]);
+            }
+        }
+        if(square != 64 || Long.bitCount(pieces[KING_TYPE]) != 1 || Long.bitCount(pieces[6 + KING_TYPE]) != 1) {
+            throw new IllegalArgumentException("Invalid FEN board: " + fields[0]);
+        }
+        side = switch (fields[1]) {
+            case "w" -> WHITE;
+            case "b" -> BLACK;
+            default -> throw new IllegalArgumentException("Invalid FEN side: " + fields[1]);
+        };
+        castling = 0;
+        for(char c : fields[2].toCharArray()) {
+            castling |= switch (c) {
+                case 'K' -> WHITE_KING_SIDE;
+                case 'Q' -> WHITE_QUEEN_SIDE;
+                case 'k' -> BLACK_KING_SIDE;
+                case 'q' -> BLACK_QUEEN_SIDE;
+                case '-' -> 0;
+                default -> throw new IllegalArgumentException("Invalid FEN castling: " + fields[2]);
+            };
+        }
+        // rights without their king and rook at home are dropped
+        for(int home : new int[]{60, 63, 56, 4, 7, 0}) {
+            int expected = home == 60 || home == 4 ? KING_TYPE : ROOK_TYPE;
+            if(board[home] != (home < 8 ? 6 : 0) + expected) {
+                castling &= CASTLE_MASK[home];
+            }
+        }
+        enPassant = fields[3].equals("-") ? -1 : parseSquare(fields[3]);
+        try {
+            halfmoves = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            fullmoves = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid FEN counters: " + fen);
+        }
+        key ^= stateKey();
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for(int rank = 0; rank < 8; rank++) {
+            int empty = 0;
+            for(int file = 0; file < 8; file++) {
+                int piece = board[rank * 8 + file];
+                if(piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if(empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(PIECE_LETTERS.charAt(piece));
+            }
+            if(empty > 0) {
+                fen.append(empty);
+            }
+            if(rank < 7) {
+                fen.append('/');
+            }
+        }
+        fen.append(side == WHITE ? " w " : " b ");
+        String rights = (castling & WHITE_KING_SIDE) != 0 ? "K" : "";
+        rights += (castling & WHITE_QUEEN_SIDE) != 0 ? "Q" : "";
+        rights += (castling & BLACK_KING_SIDE) != 0 ? "k" : "";
+        rights += (castling & BLACK_QUEEN_SIDE) != 0 ? "q" : "";
+        fen.append(rights.isEmpty() ? "-" : rights);
+        fen.append(' ').append(enPassant < 0 ? "-" : squareName(enPassant));
+        return fen.append(' ').append(halfmoves).append(' ').append(fullmoves).toString();
+    }
+
+    /**
+     * @return square of a coordinate like e4
+     * @throws IllegalArgumentException if it is no square
+     */
+    public static int parseSquare(String name) {
+        if(name.length() != 2 || name.charAt(0) < 'a' || name.charAt(0) > 'h'
+                || name.charAt(1) < '1' || name.charAt(1) > '8') {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return ('8' - name.charAt(1)) * 8 + name.charAt(0) - 'a';
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + square % 8) + (char) ('8' - square / 8);
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String moveName(int move) {
+        String name = squareName(from(move)) + squareName(to(move));
+        int promotion = promotion(move);
+        return promotion == EMPTY ? name : name + PIECE_LETTERS.charAt(6 + promotion);
+    }
+
+    public boolean inCheck() {
+        int king = Long.numberOfTrailingZeros(pieces[side * 6 + KING_TYPE]);
+        return attackers(king, side ^ 1, occupied) != 0;
+    }
+
+    /**
+     * Writes every legal move of the side to move into the array.
+     *
+     * @param moves room for {@link #MAX_MOVES} moves
+     * @return the number of moves written
+     */
+    public int generateMoves(int[] moves) {
+        int us = side;
+        int them = us ^ 1;
+        long own = colors[us];
+        int king = Long.numberOfTrailingZeros(pieces[us * 6 + KING_TYPE]);
+        long checkers = attackers(king, them, occupied);
+        int count = 0;
+
+        // the king may not step along the ray of a slider it hides from
+        long withoutKing = occupied ^ 1L << king;
+        for(long targets = KING[king] & ~own; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if(attackers(to, them, withoutKing) == 0) {
+                moves[count++] = move(king, to, board[to] == EMPTY ? QUIET : CAPTURE);
+            }
+        }
+        if(Long.bitCount(checkers) > 1) {
+            return count;
+        }
+        long target = checkers == 0 ? ~own : checkers | BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+        long pinned = pinned(king, us);
+
+        for(long from = pieces[us * 6 + KNIGHT_TYPE] & ~pinned; from != 0; from &= from - 1) {
+            int square = Long.numberOfTrailingZeros(from);
+            count = addMoves(moves, count, square, KNIGHT[square] & target);
+        }
+        long queens = pieces[us * 6 + QUEEN_TYPE];
+        for(long from = pieces[us * 6 + BISHOP_TYPE] | queens; from != 0; from &= from - 1) {
+            int square = Long.numberOfTrailingZeros(from);
+            long targets = bishopAttacks(square, occupied) & target;
+            if((pinned & 1L << square) != 0) {
+                targets &= LINE[king][square];
+            }
+            count = addMoves(moves, count, square, targets);
+        }
+        for(long from = pieces[us * 6 + ROOK_TYPE] | queens; from != 0; from &= from - 1) {
+            int square = Long.numberOfTrailingZeros(from);
+            long targets = rookAttacks(square, occupied) & target;
+            if((pinned & 1L << square) != 0) {
+                targets &= LINE[king][square];
+            }
+            count = addMoves(moves, count, square, targets);
+        }
+        count = addPawnMoves(moves, count, king, target, pinned);
+        if(checkers == 0) {
+            count = addCastles(moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the side to move has a legal move
+     */
+    public boolean hasLegalMove() {
+        return generateMoves(new int[MAX_MOVES]) > 0;
+    }
+
+    private int addMoves(int[] moves, int count, int from, long targets) {
+        for(; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves[count++] = move(from, to, board[to] == EMPTY ? QUIET : CAPTURE);
+        }
+        return count;
+    }
+
+    private int addPawnMoves(int[] moves, int count, int king, long target, long pinned) {
+        int us = side;
+        int push = us == WHITE ? -8 : 8;
+        long enemy = colors[us ^ 1];
+        for(long pawns = pieces[us * 6 + PAWN_TYPE]; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long allowed = (pinned & 1L << from) != 0 ? target & LINE[king][from] : target;
+            int to = from + push;
+            if(board[to] == EMPTY) {
+                if((allowed & 1L << to) != 0) {
+                    count = addPawnMove(moves, count, from, to, QUIET);
+                }
+                int rank = from >>> 3;
+                int twoAhead = to + push;
+                if(rank == (us == WHITE ? 6 : 1) && board[twoAhead] == EMPTY && (allowed & 1L << twoAhead) != 0) {
+                    moves[count++] = move(from, twoAhead, DOUBLE_PUSH);
+                }
+            }
+            for(long captures = PAWN[us][from] & enemy & allowed; captures != 0; captures &= captures - 1) {
+                count = addPawnMove(moves, count, from, Long.numberOfTrailingZeros(captures), CAPTURE);
+            }
+            if(enPassant >= 0 && (PAWN[us][from] & 1L << enPassant) != 0 && enPassantLegal(from, king)) {
+                moves[count++] = move(from, enPassant, EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private int addPawnMove(int[] moves, int count, int from, int to, int flags) {
+        if(to < 8 || to >= 56) {
+            for(int piece = 3; piece >= 0; piece--) {
+                moves[count++] = move(from, to, PROMOTION | flags | piece);
+            }
+            return count;
+        }
+        moves[count++] = move(from, to, flags);
+        return count;
+    }
+
+    // both pawns leave their squares, so the king is looked at on the board after the capture
+    private boolean enPassantLegal(int from, int king) {
+        int them = side ^ 1;
+        int victim = enPassant + (side == WHITE ? 8 : -8);
+        long after = occupied ^ 1L << from ^ 1L << victim | 1L << enPassant;
+        return (attackers(king, them, after) & ~(1L << victim)) == 0;
+    }
+
+    private int addCastles(int[] moves, int count) {
+        int them = side ^ 1;
+        int king = side == WHITE ? 60 : 4;
+        int kingSide = side == WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        int queenSide = side == WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        if((castling & kingSide) != 0 && (occupied & BETWEEN[king][king + 3]) == 0
+                && attackers(king + 1, them, occupied) == 0 && attackers(king + 2, them, occupied) == 0) {
+            moves[count++] = move(king, king + 2, KING_CASTLE);
+        }
+        if((castling & queenSide) != 0 && (occupied & BETWEEN[king][king - 4]) == 0
+                && attackers(king - 1, them, occupied) == 0 && attackers(king - 2, them, occupied) == 0) {
+            moves[count++] = move(king, king - 2, QUEEN_CASTLE);
+        }
+        return count;
+    }
+
+    // own pieces alone between the king and an enemy slider
+    private long pinned(int king, int us) {
+        int them = us ^ 1;
+        long enemy = colors[them];
+        long queens = pieces[them * 6 + QUEEN_TYPE];
+        long snipers = rookAttacks(king, enemy) & (pieces[them * 6 + ROOK_TYPE] | queens)
+                | bishopAttacks(king, enemy) & (pieces[them * 6 + BISHOP_TYPE] | queens);
+        long pinned = 0;
+        for(; snipers != 0; snipers &= snipers - 1) {
+            long blockers = BETWEEN[king][Long.numberOfTrailingZeros(snipers)] & occupied;
+            if(Long.bitCount(blockers) == 1) {
+                pinned |= blockers & colors[us];
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * @return pieces of the color attacking the square on the given occupancy
+     */
+    private long attackers(int square, int color, long occupied) {
+        int base = color * 6;
+        long queens = pieces[base + QUEEN_TYPE];
+        return (KNIGHT[square] & pieces[base + KNIGHT_TYPE])
+                | (KING[square] & pieces[base + KING_TYPE])
+                | (PAWN[color ^ 1][square] & pieces[base + PAWN_TYPE])
+                | (rookAttacks(square, occupied) & (pieces[base + ROOK_TYPE] | queens))
+                | (bishopAttacks(square, occupied) & (pieces[base + BISHOP_TYPE] | queens));
+    }
+
+    /**
+     * Makes a legal move of the side to move.
+     */
+    public void make(int move) {
+        if(ply == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, ply * 2);
+            stateHistory = Arrays.copyOf(stateHistory, ply * 2);
+            keyHistory = Arrays.copyOf(keyHistory, ply * 2);
+        }
+        int from = from(move);
+        int to = to(move);
+        int flags = flags(move);
+        int piece = board[from];
+        int captured = board[to];
+        moveHistory[ply] = move;
+        stateHistory[ply] = captured + 1 | castling << 4 | enPassant + 1 << 8 | halfmoves << 15;
+        keyHistory[ply] = key;
+        ply++;
+
+        key ^= stateKey();
+        if(captured != EMPTY) {
+            removePiece(to);
+        }
+        movePiece(from, to);
+        if(flags == EN_PASSANT) {
+            removePiece(to + (side == WHITE ? 8 : -8));
+        } else if(flags == KING_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if(flags == QUEEN_CASTLE) {
+            movePiece(to - 2, to + 1);
+        } else if((flags & PROMOTION) != 0) {
+            removePiece(to);
+            addPiece(to, side * 6 + promotion(move));
+        }
+        castling &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        enPassant = flags == DOUBLE_PUSH ? (from + to) / 2 : -1;
+        halfmoves = type(piece) == PAWN_TYPE || captured != EMPTY ? 0 : halfmoves + 1;
+        if(side == BLACK) {
+            fullmoves++;
+        }
+        side ^= 1;
+        key ^= stateKey();
+    }
+
+    /**
+     * Takes back the last made move.
+     *
+     * @return false if there is nothing to take back
+     */
+    public boolean unmake() {
+        if(ply == 0) {
+            return false;
+        }
+        ply--;
+        int move = moveHistory[ply];
+        int state = stateHistory[ply];
+        int from = from(move);
+        int to = to(move);
+        int flags = flags(move);
+        side ^= 1;
+        if(side == BLACK) {
+            fullmoves--;
+        }
+        if((flags & PROMOTION) != 0) {
+            removePiece(to);
+            addPiece(to, side * 6 + PAWN_TYPE);
+        } else if(flags == KING_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if(flags == QUEEN_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+        movePiece(to, from);
+        int captured = (state & 15) - 1;
+        if(captured != EMPTY) {
+            addPiece(to, captured);
+        }
+        if(flags == EN_PASSANT) {
+            addPiece(to + (side == WHITE ? 8 : -8), (side ^ 1) * 6 + PAWN_TYPE);
+        }
+        castling = state >>> 4 & 15;
+        enPassant = (state >>> 8 & 127) - 1;
+        halfmoves = state >>> 15;
+        key = keyHistory[ply];
+        return true;
+    }
+
+    /**
+     * @return times the position stood before with the same side to move, since the last capture or pawn move
+     */
+    public int repetitions() {
+        int count = 0;
+        for(int i = ply - 2; i >= 0 && i >= ply - halfmoves; i -= 2) {
+            if(keyHistory[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true if neither side has the pieces left to mate: kings with at most one knight or bishop
+     */
+    public boolean insufficientMaterial() {
+        long heavy = 0;
+        for(int color = 0; color < 2; color++) {
+            heavy |= pieces[color * 6 + PAWN_TYPE] | pieces[color * 6 + ROOK_TYPE] | pieces[color * 6 + QUEEN_TYPE];
+        }
+        return heavy == 0 && Long.bitCount(occupied) <= 3;
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree, the leaves of the last ply by their move count.
+     */
+    public long perft(int depth) {
+        if(depth == 0) {
+            return 1;
+        }
+        if(perftMoves.length <= depth) {
+            perftMoves = Arrays.copyOf(perftMoves, depth + 1);
+        }
+        if(perftMoves[depth] == null) {
+            perftMoves[depth] = new int[MAX_MOVES];
+        }
+        int[] moves = perftMoves[depth];
+        int count = generateMoves(moves);
+        if(depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for(int i = 0; i < count; i++) {
+            make(moves[i]);
+            nodes += perft(depth - 1);
+            unmake();
+        }
+        return nodes;
+    }
+
+    /**
+     * Material with a small bonus for central minor pieces and advanced pawns.
+     *
+     * @return higher is better for the side to move
+     */
+    public int evaluate() {
+        int score = 0;
+        for(int piece = 0; piece < 12; piece++) {
+            int sign = color(piece) == side ? 1 : -1;
+            int type = type(piece);
+            for(long squares = pieces[piece]; squares != 0; squares &= squares - 1) {
+                int square = Long.numberOfTrailingZeros(squares);
+                int rank = square >>> 3;
+                int file = square & 7;
+                int bonus = switch (type) {
+                    case PAWN_TYPE -> 5 * (color(piece) == WHITE ? 6 - rank : rank - 1);
+                    case KNIGHT_TYPE, BISHOP_TYPE -> 20 - 5 * (Math.abs(2 * file - 7) + Math.abs(2 * rank - 7)) / 2;
+                    default -> 0;
+                };
+                score += sign * (VALUE[type] + bonus);
+            }
+        }
+        return score;
+    }
+
+    // castling rights and en passant file, xor-ed out before a move and in after it
+    private long stateKey() {
+        return Zobrist.castling(castling) ^ (enPassant < 0 ? 0 : Zobrist.enPassant(enPassant & 7));
+    }
+
+    private void addPiece(int square, int piece) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colors[color(piece)] |= bit;
+        occupied |= bit;
+        board[square] = piece;
+        key ^= PIECE_KEYS[piece][square];
+    }
+
+    private void removePiece(int square) {
+        int piece = board[square];
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        colors[color(piece)] &= ~bit;
+        occupied &= ~bit;
+        board[square] = EMPTY;
+        key ^= PIECE_KEYS[piece][square];
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        long bits = 1L << from | 1L << to;
+        pieces[piece] ^= bits;
+        colors[color(piece)] ^= bits;
+        occupied ^= bits;
+        board[from] = EMPTY;
+        board[to] = piece;
+        key ^= PIECE_KEYS[piece][from] ^ PIECE_KEYS[piece][to];
+    }
+}
@@ -1,29 +1,138 @@
 package model.rules.gameRule;
 
+import model.Board;
 import model.enums.GameType;
+import model.enums.Player;
 import model.exceptions.GameException;
 import model.exceptions.InvalidMoveException;
-import model.pieces.Piece;
 import model.structs.GameStatistics;
 import model.structs.Move;
 
+import java.util.List;
+
 public interface GameRule {
 
     GameType getGameType();
 
-    Piece[][] initializeGrid(int height, int width);
+    /**
+     * Sets up the starting pieces on the empty cells of a new game.
+     */
+    void initializeGrid(GameStatistics statistics);
+
+    /**
+     * @return false if the rule keeps the board in its extra info, the game then has no cells
+     */
+    default boolean hasGrid() {
+        return true;
+    }
+
+    /**
+     * Largest height or width the rule can play on.
+     * Defaults to {@link Board#MAX_BOARD_SIZE}, the limit of the padded piece grid.
+     */
+    default int getMaxBoardSize() {
+        return Board.MAX_BOARD_SIZE;
+    }
+
+    /**
+     * Smallest height or width the rule can play on. Defaults to {@link Board#MIN_BOARD_SIZE}.
+     */
+    default int getMinBoardSize() {
+        return Board.MIN_BOARD_SIZE;
+    }
 
     void initializeExtraInfo(GameStatistics statistics);
 
+    /**
+     * Deep copies the rule specific state into a copied game.
+     *
+     * @param source the game copied from
+     * @param target the copy, grid already filled
+     */
+    void copyExtraInfo(GameStatistics source, GameStatistics target);
+
     boolean placePieceValidationCheck(Move move, GameStatistics statistics) throws GameException;
 
+    /**
+     * Collects the squares worth offering the current player, without throwing: legal placements,
+     * possibly filtered by the rule, e.g. k-in-a-row only offers squares near a stone while the others
+     * stay legal to play. An overlay for the display, {@link #generateMoves} has every legal move.
+     * Exceptions of {@link #placePieceValidationCheck} are kept for rejected user moves.
+     *
+     * @param statistics the board statistics
+     * @return mask in the {@link model.structs.BitBoard} layout of the board
+     * @throws UnsupportedOperationException if the rule has no grid, see {@link #hasGrid}, callers check first
+     */
+    long[] getValidMoves(GameStatistics statistics);
+
+    /**
+     * Enumerates every legal move of the current player, passes and special moves included.
+     *
+     * @param statistics the board statistics
+     * @return legal moves, empty when the game is over
+     */
+    List<Move> generateMoves(GameStatistics statistics);
+
+    /**
+     * The moves a search should try, a subset of {@link #generateMoves} that leaves out
+     * moves not worth a look, e.g. squares far from any stone. Defaults to every legal move.
+     *
+     * @param statistics the board statistics
+     * @return moves to search, empty when the game is over
+     */
+    default List<Move> generateSearchMoves(GameStatistics statistics) {
+        return generateMoves(statistics);
+    }
+
+    /**
+     * Whether perft counts a game finished before the requested depth as a single leaf.
+     * Defaults to false, only positions at the requested depth are leaves, as in chess perft.
+     */
+    default boolean perftCountsFinishedGames() {
+        return false;
+    }
+
     void nextPlayer(GameStatistics statistics);
 
     boolean placePiece(Move move, GameStatistics statistics) throws GameException;
 
+    /**
+     * Places a piece, switches player and checks game over, without touching the display.
+     * Every made move can be taken back by {@link #unmakeMove(GameStatistics)}.
+     *
+     * @return true if the move was made
+     */
+    default boolean makeMove(Move move, GameStatistics statistics) throws GameException {
+        if(!placePiece(move, statistics)) {
+            return false;
+        }
+        nextPlayer(statistics);
+        gameOverCheck(statistics);
+        return true;
+    }
+
+    /**
+     * Takes back the last move from its undo record, in O(changed squares).
+     *
+     * @return false if there is nothing to take back
+     */
+    boolean unmakeMove(GameStatistics statistics);
+
     boolean gameOverCheck(GameStatistics statistics);
 
     int getWhiteScore(GameStatistics statistics);
 
     int getBlackScore(GameStatistics statistics);
+
+    /**
+     * Heuristic value of a running game for the player to move, used by the computer player.
+     * Defaults to the score difference.
+     *
+     * @param statistics the board statistics
+     * @return higher is better for the player to move
+     */
+    default int evaluate(GameStatistics statistics) {
+        int difference = getBlackScore(statistics) - getWhiteScore(statistics);
+        return statistics.getCurrentPlayer() == Player.BLACK ? difference : -difference;
+    }
 }
@@ -5,11 +5,17 @@ import model.enums.Player;
 import model.exceptions.GameException;
 import model.exceptions.OccupiedPositionException;
 import model.exceptions.RuleViolationException;
-import model.pieces.Piece;
 import model.pieces.PieceImplBomb;
+import model.structs.BitBoard;
 import model.structs.GameStatistics;
 import model.structs.Move;
+import model.structs.MoveLog;
 import model.structs.Point;
+import model.structs.UndoRecord;
+import model.structs.Zobrist;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
     private static final GameRuleImplBomb instance = new GameRuleImplBomb();
@@ -20,18 +26,77 @@ public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
 
     private GameRuleImplBomb() {}
 
-    private final static Point[] DIRECTIONS = {
-            new Point(1,1),  new Point(1,0),  new Point(1,-1),
-            new Point(0,1),                         new Point(0,-1),
-            new Point(-1,1), new Point(-1,0), new Point(-1,-1)
-    };
+    /** stones in a row that win */
+    private static final int WIN_LENGTH = 5;
+
+    /** smallest board holding every barrier */
+    public static final int MIN_BOARD_SIZE = 12;
+
+    private static final int CRATER_FLAG = 1;
+    /** piece types by the code kept in the grid cells */
+    private static final BombPieceType[] BOMB_TYPES = BombPieceType.values();
+
+    /** evaluation worth of a bomb in hand, about an open three */
+    private static final int BOMB_WEIGHT = 200;
+    /** rival stones a live window needs before its stones are worth bombing in a search */
+    private static final int THREAT_STONES = 3;
 
     public static class BombRecord {
         private int blackBombCount;
         private int whiteBombCount;
-        public BombRecord() {
+        // barriers never hold a stone, the board is full once they are the only empty squares
+        private int barriers;
+        private final CandidateSet candidates;
+        // craters and barriers are blocked for both players
+        private final GomokuLineEvaluator evaluator;
+        // normal stones only, craters and barriers blocked
+        private final KInARowKernel kernel;
+        // targets of a player out of bombs, never written
+        private final long[] noTargets;
+        public BombRecord(BitBoard bitBoard) {
             blackBombCount = 2;
             whiteBombCount = 3;
+            candidates = new CandidateSet(bitBoard);
+            evaluator = new GomokuLineEvaluator(bitBoard, WIN_LENGTH);
+            kernel = new KInARowKernel(bitBoard, WIN_LENGTH, false);
+            noTargets = bitBoard.newMask();
+        }
+
+        public BombRecord(BombRecord source) {
+            blackBombCount = source.blackBombCount;
+            whiteBombCount = source.whiteBombCount;
+            barriers = source.barriers;
+            candidates = new CandidateSet(source.candidates);
+            evaluator = new GomokuLineEvaluator(source.evaluator);
+            kernel = new KInARowKernel(source.kernel);
+            noTargets = source.noTargets;
+        }
+
+        /**
+         * Squares a normal stone may go on: empty, neither crater nor barrier.
+         * The same for both players, kept move by move.
+         *
+         * @return mask in the {@link BitBoard} layout, read only
+         */
+        public long[] getNormalMoves() {
+            return candidates.getEmpty();
+        }
+
+        /**
+         * Rival normal stones the player may bomb, none once the player is out of bombs.
+         * Kept move by move.
+         *
+         * @return mask in the {@link BitBoard} layout, read only
+         */
+        public long[] getCraterTargets(Player player) {
+            if(getBombCount(player) == 0) {
+                return noTargets;
+            }
+            return kernel.getStones(player == Player.BLACK ? Player.WHITE : Player.BLACK);
+        }
+
+        public int getBombCount(Player player) {
+            return player == Player.BLACK ? blackBombCount : whiteBombCount;
         }
 
         public int getBlackBombCount() {
@@ -49,26 +114,79 @@ public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
         public void useWhiteBomb() {
             whiteBombCount--;
         }
+
+        public void refundBlackBomb() {
+            blackBombCount++;
+        }
+
+        public void refundWhiteBomb() {
+            whiteBombCount++;
+        }
     };
 
+    /**
+     * The barriers stand up to row 12.
+     */
     @Override
-    public Piece[][] initializeGrid(int height, int width){
-        PieceImplBomb[][] pieceGrid = new PieceImplBomb[height+2][width+2];
-        for(int i = 0; i < height+2; i++) {
-            for(int j = 0; j < width+2; j++) {
-                pieceGrid[i][j] = new PieceImplBomb();
+    public int getMinBoardSize() {
+        return MIN_BOARD_SIZE;
+    }
+
+    @Override
+    public void initializeGrid(GameStatistics statistics){
+        int barrier = BombPieceType.BARRIER.ordinal();
+        statistics.setPiece(6, 3, Player.NONE, barrier);
+        statistics.setPiece(7, 8, Player.NONE, barrier);
+        statistics.setPiece(6, 9, Player.NONE, barrier);
+        statistics.setPiece(11, 12, Player.NONE, barrier);
+    }
+
+    private static BombPieceType typeAt(GameStatistics statistics, int x, int y) {
+        return BOMB_TYPES[statistics.getPieceType(x, y)];
+    }
+
+    @Override
+    public void initializeExtraInfo(GameStatistics statistics) {
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        BombRecord bombRecord = new BombRecord(bitBoard);
+        for(int y = 1; y <= statistics.getHeight(); y++) {
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                BombPieceType type = typeAt(statistics, x, y);
+                Player player = statistics.getPlayer(x, y);
+                int square = bitBoard.index(x, y);
+                if(type == BombPieceType.BARRIER) {
+                    bombRecord.barriers++;
+                }
+                if(type != BombPieceType.NORMAL || player != Player.NONE) {
+                    bombRecord.candidates.fill(square);
+                }
+                if(type == BombPieceType.NORMAL && player != Player.NONE) {
+                    bombRecord.candidates.addStone(square);
+                    bombRecord.evaluator.place(square, player);
+                    bombRecord.kernel.place(square, player);
+                } else if(type != BombPieceType.NORMAL) {
+                    bombRecord.evaluator.block(square);
+                    bombRecord.kernel.block(square);
+                }
             }
         }
-        pieceGrid[3][6].setType(BombPieceType.BARRIER);
-        pieceGrid[8][7].setType(BombPieceType.BARRIER);
-        pieceGrid[9][6].setType(BombPieceType.BARRIER);
-        pieceGrid[12][11].setType(BombPieceType.BARRIER);
-        return pieceGrid;
+        statistics.setExtraInfo(bombRecord);
+        hashBombs(statistics);
     }
 
     @Override
-    public void initializeExtraInfo(GameStatistics statistics) {
-        statistics.setExtraInfo(new BombRecord());
+    public void copyExtraInfo(GameStatistics source, GameStatistics target) {
+        target.setExtraInfo(new BombRecord((BombRecord) source.getExtraInfo()));
+    }
+
+    /**
+     * Toggles the bomb counts in or out of the position hash,
+     * called around every change of the counts.
+     */
+    private static void hashBombs(GameStatistics statistics) {
+        BombRecord bombRecord = (BombRecord) statistics.getExtraInfo();
+        statistics.xorHash(Zobrist.bombs(Player.BLACK, bombRecord.getBlackBombCount())
+                ^ Zobrist.bombs(Player.WHITE, bombRecord.getWhiteBombCount()));
     }
 
     @Override
@@ -77,39 +195,40 @@ public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
                 move.end.y <= 0 || move.end.y > statistics.getWidth() ) {
             return false;
         }
-        if( ! (statistics.getPieceGrid()[move.end.y][move.end.x] instanceof PieceImplBomb pieceToReplace)
-                || !(move.piece instanceof PieceImplBomb pieceToPlace) ) {
+        if( !(move.piece instanceof PieceImplBomb pieceToPlace) ) {
             throw new IllegalArgumentException("Invalid Piece implementation");
         }
         move.piece.setPlayer(statistics.getCurrentPlayer());
+        Player playerToReplace = statistics.getPlayer(move.end.x, move.end.y);
+        BombPieceType typeToReplace = typeAt(statistics, move.end.x, move.end.y);
 
         // debt
         return switch (pieceToPlace.getType()) {
             case NORMAL -> {
-                if(pieceToReplace.getPlayer() != Player.NONE) {
+                if(playerToReplace != Player.NONE) {
                     throw new OccupiedPositionException(move.end);
                 }
 
-                if(pieceToReplace.getType() != BombPieceType.NORMAL) {
+                if(typeToReplace != BombPieceType.NORMAL) {
                     throw new RuleViolationException("Unable to place piece here");
                 }
 
                 yield true;
             }
             case CRATER -> {
-                if(pieceToReplace.getType() == BombPieceType.BARRIER) {
+                if(typeToReplace == BombPieceType.BARRIER) {
                     throw new RuleViolationException("Unbreakable barrier!");
                 }
 
-                if(pieceToReplace.getType() == BombPieceType.CRATER) {
+                if(typeToReplace == BombPieceType.CRATER) {
                     throw new RuleViolationException("The shell does not hit a crater twice.");
                 }
 
-                if(pieceToReplace.getPlayer() == Player.NONE) {
+                if(playerToReplace == Player.NONE) {
                     throw new RuleViolationException("No, it's a waste of bomb.");
                 }
 
-                if(pieceToReplace.getPlayer() == statistics.getCurrentPlayer()) {
+                if(playerToReplace == statistics.getCurrentPlayer()) {
                     throw new RuleViolationException("FRIENDLY FIRE!");
                 }
 
@@ -133,6 +252,67 @@ public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
         };
     }
 
+    /**
+     * Normal placements of the current player near a stone: empty squares that are neither crater nor barrier,
+     * within {@link CandidateSet#RADIUS} of a normal stone, or all of them before the first stone.
+     */
+    @Override
+    public long[] getValidMoves(GameStatistics statistics) {
+        return ((BombRecord) statistics.getExtraInfo()).candidates.getCandidates();
+    }
+
+    /**
+     * Every normal placement followed by every crater move.
+     */
+    @Override
+    public List<Move> generateMoves(GameStatistics statistics) {
+        List<Move> moves = new ArrayList<>();
+        if(statistics.getWinner() != null) {
+            return moves;
+        }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        BombRecord bombRecord = (BombRecord) statistics.getExtraInfo();
+        long[] normal = bombRecord.getNormalMoves();
+        for(int i = BitBoard.nextSetBit(normal, 0); i >= 0; i = BitBoard.nextSetBit(normal, i + 1)) {
+            moves.add(new Move(new Point(0,0), new Point(bitBoard.x(i), bitBoard.y(i)), new PieceImplBomb()));
+        }
+        long[] targets = bombRecord.getCraterTargets(statistics.getCurrentPlayer());
+        for(int i = BitBoard.nextSetBit(targets, 0); i >= 0; i = BitBoard.nextSetBit(targets, i + 1)) {
+            PieceImplBomb crater = new PieceImplBomb();
+            crater.setType(BombPieceType.CRATER);
+            moves.add(new Move(new Point(0,0), new Point(bitBoard.x(i), bitBoard.y(i)), crater));
+        }
+        return moves;
+    }
+
+    /**
+     * Normal placements near a stone, and crater moves only on rival stones in a live window
+     * of {@value #THREAT_STONES} or more rival stones: a bomb elsewhere does not answer a threat.
+     */
+    @Override
+    public List<Move> generateSearchMoves(GameStatistics statistics) {
+        List<Move> moves = new ArrayList<>();
+        if(statistics.getWinner() != null) {
+            return moves;
+        }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        BombRecord bombRecord = (BombRecord) statistics.getExtraInfo();
+        long[] normal = getValidMoves(statistics);
+        for(int i = BitBoard.nextSetBit(normal, 0); i >= 0; i = BitBoard.nextSetBit(normal, i + 1)) {
+            moves.add(new Move(new Point(0,0), new Point(bitBoard.x(i), bitBoard.y(i)), new PieceImplBomb()));
+        }
+        Player rival = statistics.getCurrentPlayer() == Player.BLACK ? Player.WHITE : Player.BLACK;
+        long[] targets = bombRecord.getCraterTargets(statistics.getCurrentPlayer());
+        for(int i = BitBoard.nextSetBit(targets, 0); i >= 0; i = BitBoard.nextSetBit(targets, i + 1)) {
+            if(bombRecord.evaluator.inWindow(i, rival, THREAT_STONES)) {
+                PieceImplBomb crater = new PieceImplBomb();
+                crater.setType(BombPieceType.CRATER);
+                moves.add(new Move(new Point(0,0), new Point(bitBoard.x(i), bitBoard.y(i)), crater));
+            }
+        }
+        return moves;
+    }
+
     @Override
     public void nextPlayer(GameStatistics statistics) {
         statistics.switchPlayer();
@@ -143,43 +323,116 @@ public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
         if(!placePieceValidationCheck(move, statistics)) {
             return false;
         }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        int square = bitBoard.index(move.end);
+        BombRecord bombRecord = (BombRecord) statistics.getExtraInfo();
         if(move.piece instanceof PieceImplBomb pieceToPlace) {
             if(pieceToPlace.getType() == BombPieceType.CRATER) {
+                bombRecord.candidates.removeStone(square);
+                Player rival = statistics.getPlayer(move.end.x, move.end.y);
+                bombRecord.evaluator.remove(square, rival);
+                bombRecord.evaluator.block(square);
+                bombRecord.kernel.remove(square, rival);
+                bombRecord.kernel.block(square);
+                hashBombs(statistics);
                 switch(pieceToPlace.getPlayer()) {
-                    case BLACK -> ((BombRecord)statistics.getExtraInfo()).useBlackBomb();
-                    case WHITE -> ((BombRecord)statistics.getExtraInfo()).useWhiteBomb();
+                    case BLACK -> bombRecord.useBlackBomb();
+                    case WHITE -> bombRecord.useWhiteBomb();
                     default -> throw new IllegalArgumentException("Invalid player");
                 }
+                hashBombs(statistics);
+            } else {
+                statistics.addEmptySquares(-1);
+                bombRecord.candidates.fill(square);
+                bombRecord.candidates.addStone(square);
+                bombRecord.evaluator.place(square, statistics.getCurrentPlayer());
+                bombRecord.kernel.place(square, statistics.getCurrentPlayer());
             }
         } else {
             throw new IllegalArgumentException("Invalid piece type");
         }
+        int cell = statistics.cellIndex(move.end.x, move.end.y);
+        BombPieceType type = ((PieceImplBomb) move.piece).getType();
+        statistics.pushUndoRecord(new UndoRecord(
+                square,
+                statistics.getCurrentPlayer(),
+                statistics.getRound(),
+                null,
+                type == BombPieceType.CRATER ? CRATER_FLAG : 0));
         move.piece.setPlayer(statistics.getCurrentPlayer());
-        statistics.getPieceGrid()[move.end.y][move.end.x].setPiece(move.piece);
+        statistics.xorHash(Zobrist.piece(square, statistics.getPlayer(cell), statistics.getPieceType(cell)));
+        statistics.setPiece(cell, statistics.getCurrentPlayer(), type.ordinal());
+        statistics.xorHash(Zobrist.piece(square, statistics.getPlayer(cell), statistics.getPieceType(cell)));
         statistics.addMove(move);
         return true;
     }
 
     @Override
-    public boolean gameOverCheck(GameStatistics statistics) {
-        boolean full = true;
-        Point boardPoint = new Point(0, 0);
-        for(boardPoint.y = 1; boardPoint.y <= statistics.getHeight(); boardPoint.y++) {
-            for(boardPoint.x = 1; boardPoint.x <= statistics.getWidth(); boardPoint.x++) {
-                if( statistics.getPieceGrid()[boardPoint.y][boardPoint.x].getPlayer() == Player.NONE ) {
-                    full = false;
-                } else {
-                    if(checkConnects(boardPoint, statistics) >= 5) {
-                        statistics.setWinner(statistics.getPieceGrid()[boardPoint.y][boardPoint.x].getPlayer());
-                        return true;
-                    }
+    public boolean unmakeMove(GameStatistics statistics) {
+        UndoRecord record = statistics.popUndoRecord();
+        if(record == null) {
+            return false;
+        }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        int cell = statistics.cellIndex(bitBoard.x(record.square), bitBoard.y(record.square));
+        statistics.xorHash(Zobrist.piece(record.square, statistics.getPlayer(cell), statistics.getPieceType(cell)));
+        statistics.setPiece(cell, statistics.getPlayer(cell), BombPieceType.NORMAL.ordinal());
+        BombRecord bombRecord = (BombRecord) statistics.getExtraInfo();
+        if((record.flags & CRATER_FLAG) != 0) {
+            bombRecord.candidates.addStone(record.square);
+            bombRecord.evaluator.unblock(record.square);
+            bombRecord.kernel.unblock(record.square);
+            hashBombs(statistics);
+            // a crater always replaces a rival normal piece
+            switch (record.player) {
+                case BLACK -> {
+                    statistics.setPlayer(cell, Player.WHITE);
+                    bombRecord.refundBlackBomb();
+                }
+                case WHITE -> {
+                    statistics.setPlayer(cell, Player.BLACK);
+                    bombRecord.refundWhiteBomb();
                 }
+                default -> throw new IllegalArgumentException("Invalid player");
             }
+            bombRecord.evaluator.place(record.square, statistics.getPlayer(cell));
+            bombRecord.kernel.place(record.square, statistics.getPlayer(cell));
+            hashBombs(statistics);
+        } else {
+            bombRecord.evaluator.remove(record.square, record.player);
+            bombRecord.kernel.remove(record.square, record.player);
+            statistics.setPlayer(cell, Player.NONE);
+            statistics.addEmptySquares(1);
+            bombRecord.candidates.removeStone(record.square);
+            bombRecord.candidates.vacate(record.square);
         }
-        if(full) {
+        statistics.xorHash(Zobrist.piece(record.square, statistics.getPlayer(cell), statistics.getPieceType(cell)));
+        statistics.removeLastMove();
+        statistics.restoreTurn(record.player, record.round);
+        return true;
+    }
+
+    /**
+     * Only a normal stone can complete a row, so only the player of the last one is checked.
+     * A crater only breaks rows. The game is drawn once no normal square is left empty.
+     */
+    @Override
+    public boolean gameOverCheck(GameStatistics statistics) {
+        MoveLog moves = statistics.getMoves();
+        if(!moves.isEmpty()) {
+            int lastMove = moves.last();
+            Player player = MoveLog.player(lastMove);
+            if(BOMB_TYPES[moves.pieceType(lastMove)] == BombPieceType.NORMAL
+                    && ((BombRecord) statistics.getExtraInfo()).kernel.hasRun(player)) {
+                statistics.setWinner(player);
+                return true;
+            }
+        }
+        if(statistics.getEmptySquares() == ((BombRecord) statistics.getExtraInfo()).barriers) {
             statistics.setWinner(Player.NONE);
+            return true;
         }
-        return full;
+        return false;
     }
 
     @Override
@@ -192,28 +445,15 @@ public class GameRuleImplBomb extends AbstractGameRuleMonochrome {
         return statistics.getWinner() == Player.BLACK ? 1:0;
     }
 
-    private int checkConnects(Point point, GameStatistics statistics) {
-        if(!(statistics.getPieceGrid() instanceof PieceImplBomb[][] pieceGrid)) {
-            throw new IllegalArgumentException("Invalid piece grid");
-        }
-        Point temp = new Point(0,0);
-        Player currentPlayer = statistics.getPieceGrid()[point.y][point.x].getPlayer();
-        int maxConnectCount = 1;
-
-        for(Point direction : DIRECTIONS) {
-            int connectCount = 1;
-            temp.set(point)
-                    .translate(direction);
-            while(pieceGrid[temp.y][temp.x].getPlayer() == currentPlayer
-                    && pieceGrid[temp.y][temp.x].getType() == BombPieceType.NORMAL) {
-                temp.translate(direction);
-                connectCount++;
-            }
-            if(connectCount > maxConnectCount) {
-                maxConnectCount = connectCount;
-            }
-        }
-
-        return maxConnectCount;
+    /**
+     * Line patterns of both players, craters and barriers breaking them, and the bombs in hand.
+     */
+    @Override
+    public int evaluate(GameStatistics statistics) {
+        BombRecord bombRecord = (BombRecord) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+        return bombRecord.evaluator.getScore(player)
+                + BOMB_WEIGHT * (bombRecord.getBombCount(player) - bombRecord.getBombCount(rival));
     }
 }
@@ -3,16 +3,28 @@ package model.rules.gameRule;
 import model.enums.ChessPieceType;
 import model.enums.GameType;
 import model.enums.Player;
-import model.pieces.Piece;
+import model.exceptions.GameException;
+import model.exceptions.OutOfBoardException;
+import model.exceptions.RuleViolationException;
 import model.pieces.PieceImplChess;
-import model.pieces.PieceImplMonochrome;
+import model.structs.BitBoard;
 import model.structs.GameStatistics;
 import model.structs.Move;
+import model.structs.Point;
+import model.structs.UndoRecord;
+import model.structs.Zobrist;
 
-/*
-* not completed
-* */
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Chess on the 8x8 grid, played by a {@link ChessPosition} kept as the extra info.
+ *
+ * <p>The position generates the legal moves and makes them, the piece grid is synced
+ * from it on the few squares a move touches. Row 1 of the grid is rank 8, black sets up
+ * at the top and white moves first. A move names its start and end square, its piece the type
+ * a pawn promotes to; a promotion without one takes a queen.
+ */
 public class GameRuleImplChess implements GameRule {
     private static final GameRuleImplChess instance = new GameRuleImplChess();
 
@@ -22,95 +34,281 @@ public class GameRuleImplChess implements GameRule {
 
     private GameRuleImplChess() {}
 
-    private boolean checkMovePawn(Move move, Piece[][] pieceGrid) {
-        if( ! (pieceGrid[move.start.y][move.start.x] instanceof PieceImplMonochrome pieceImplMonochrome) ) {
-            throw new IllegalArgumentException("Invalid Piece implementation");
+    private static final int SIZE = 8;
+    private static final ChessPieceType[] BACK_RANK = {
+            ChessPieceType.ROOK, ChessPieceType.KNIGHT, ChessPieceType.BISHOP, ChessPieceType.QUEEN,
+            ChessPieceType.KING, ChessPieceType.BISHOP, ChessPieceType.KNIGHT, ChessPieceType.ROOK};
+    /** the fifty move rule, counted in half moves */
+    private static final int FIFTY_MOVES = 100;
+
+    @Override
+    public GameType getGameType() {
+        return GameType.MOVE_PIECE;
+    }
+
+    @Override
+    public int getMinBoardSize() {
+        return SIZE;
+    }
+
+    @Override
+    public int getMaxBoardSize() {
+        return SIZE;
+    }
+
+    @Override
+    public void initializeGrid(GameStatistics statistics) {
+        for(int x = 1; x <= SIZE; x++) {
+            statistics.setPiece(x, 1, Player.BLACK, BACK_RANK[x - 1].ordinal());
+            statistics.setPiece(x, 2, Player.BLACK, ChessPieceType.PAWN.ordinal());
+            statistics.setPiece(x, 7, Player.WHITE, ChessPieceType.PAWN.ordinal());
+            statistics.setPiece(x, 8, Player.WHITE, BACK_RANK[x - 1].ordinal());
         }
-        if(move.start.y >= move.end.y) {return false;}
-        return pieceGrid[move.end.y][move.end.x].getPlayer() != pieceImplMonochrome.getPlayer();
     }
 
-    private static void setLine(int line, PieceImplChess[][] pieceGrid) {
-        pieceGrid[line][0].setPieceType(ChessPieceType.ROOK);
-        pieceGrid[line][1].setPieceType(ChessPieceType.KNIGHT);
-        pieceGrid[line][2].setPieceType(ChessPieceType.BISHOP);
-        pieceGrid[line][3].setPieceType(ChessPieceType.QUEEN);
-        pieceGrid[line][4].setPieceType(ChessPieceType.KING);
-        pieceGrid[line][5].setPieceType(ChessPieceType.BISHOP);
-        pieceGrid[line][6].setPieceType(ChessPieceType.KNIGHT);
-        pieceGrid[line][7].setPieceType(ChessPieceType.ROOK);
+    // copies a square of the position into the grid cells
+    private static void syncSquare(GameStatistics statistics, ChessPosition position, int square) {
+        int cell = statistics.cellIndex(square % SIZE + 1, square / SIZE + 1);
+        int piece = position.pieceAt(square);
+        if(piece == ChessPosition.EMPTY) {
+            statistics.setPiece(cell, Player.NONE, 0);
+        } else {
+            statistics.setPiece(cell, ChessPosition.player(piece), ChessPosition.pieceType(piece).ordinal());
+        }
     }
 
+    /**
+     * Sets up the position of the start grid, white to move with every castling right.
+     */
     @Override
-    public GameType getGameType() {
-        return GameType.MOVE_PIECE;
+    public void initializeExtraInfo(GameStatistics statistics) {
+        ChessPosition position = new ChessPosition();
+        statistics.setExtraInfo(position);
+        // the grid hash holds the pieces, castling rights come on top; white moves first
+        statistics.xorHash(Zobrist.castling(position.getCastling()));
+        statistics.switchPlayer();
     }
 
     @Override
-    public Piece[][] initializeGrid(int height, int width) {
-        assert height == 8 && width == 8;
-        PieceImplChess[][] pieceGrid = new PieceImplChess[height+2][width+2];
-        for(int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                pieceGrid[i][j] = new PieceImplChess();
+    public void copyExtraInfo(GameStatistics source, GameStatistics target) {
+        target.setExtraInfo(new ChessPosition((ChessPosition) source.getExtraInfo()));
+    }
+
+    /**
+     * @return the position the grid shows, read only
+     */
+    public ChessPosition getPosition(GameStatistics statistics) {
+        return (ChessPosition) statistics.getExtraInfo();
+    }
+
+    /**
+     * Sets a game without moves to a FEN position, grid, hash and turn included.
+     * The round follows the full move number of the FEN, one more with black to move
+     * as the round goes up on the move of white.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed
+     * @throws IllegalStateException if the game has moves to take back
+     */
+    public void setPosition(GameStatistics statistics, String fen) {
+        if(!statistics.getMoves().isEmpty()) {
+            throw new IllegalStateException("The game has moves already");
+        }
+        ChessPosition position = new ChessPosition();
+        position.setFen(fen);
+        ChessPosition previous = (ChessPosition) statistics.getExtraInfo();
+        statistics.setExtraInfo(position);
+        statistics.xorHash(previous.getKey() ^ position.getKey());
+        int emptySquares = 0;
+        for(int square = 0; square < SIZE * SIZE; square++) {
+            syncSquare(statistics, position, square);
+            if(position.pieceAt(square) == ChessPosition.EMPTY) {
+                emptySquares++;
             }
         }
+        statistics.addEmptySquares(emptySquares - statistics.getEmptySquares());
+        boolean whiteToMove = position.getSide() == ChessPosition.WHITE;
+        statistics.restoreTurn(whiteToMove ? Player.WHITE : Player.BLACK,
+                whiteToMove ? position.getFullmoves() : position.getFullmoves() + 1);
+        gameOverCheck(statistics);
+    }
 
-        for(int i = 0; i < 8; i++) {
-            pieceGrid[0][i].setPlayer(Player.WHITE);
-            pieceGrid[1][i].setPlayer(Player.WHITE);
-            pieceGrid[1][i].setPieceType(ChessPieceType.PAWN);
+    @Override
+    public boolean placePieceValidationCheck(Move move, GameStatistics statistics) throws GameException {
+        findMove(move, statistics);
+        return true;
+    }
 
-            pieceGrid[6][i].setPlayer(Player.BLACK);
-            pieceGrid[7][i].setPlayer(Player.BLACK);
-            pieceGrid[6][i].setPieceType(ChessPieceType.PAWN);
+    // the legal position move matching a move, throws if there is none
+    private int findMove(Move move, GameStatistics statistics) throws GameException {
+        for(Point point : new Point[]{move.start, move.end}) {
+            if(point.x <= 0 || point.x > SIZE || point.y <= 0 || point.y > SIZE) {
+                throw new OutOfBoardException(point);
+            }
+        }
+        if(statistics.getWinner() != null) {
+            throw new RuleViolationException("the game is over");
+        }
+        ChessPosition position = (ChessPosition) statistics.getExtraInfo();
+        int from = square(move.start);
+        int to = square(move.end);
+        int piece = position.pieceAt(from);
+        if(piece == ChessPosition.EMPTY || ChessPosition.player(piece) != statistics.getCurrentPlayer()) {
+            throw new RuleViolationException("no piece of yours to move there");
         }
-        setLine(0, pieceGrid);
-        setLine(7, pieceGrid);
-        return pieceGrid;
+        int promotion = move.piece instanceof PieceImplChess pieceImplChess
+                ? ChessPosition.type(pieceImplChess.getPieceType()) : ChessPosition.EMPTY;
+        int[] moves = new int[ChessPosition.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        for(int i = 0; i < count; i++) {
+            int candidate = moves[i];
+            int promoted = ChessPosition.promotion(candidate);
+            if(ChessPosition.from(candidate) == from && ChessPosition.to(candidate) == to
+                    && (promoted == ChessPosition.EMPTY || promoted == promotion
+                        || promoted == ChessPosition.QUEEN_TYPE && promotion < ChessPosition.KNIGHT_TYPE)) {
+                return candidate;
+            }
+        }
+        throw new RuleViolationException(position.inCheck()
+                ? "the move does not get the king out of check" : "the piece cannot move there");
     }
 
+    /**
+     * Squares a piece of the player to move can go to.
+     */
     @Override
-    public void initializeExtraInfo(GameStatistics statistics) {}
+    public long[] getValidMoves(GameStatistics statistics) {
+        long[] mask = BitBoard.of(statistics.getHeight(), statistics.getWidth()).newMask();
+        if(statistics.getWinner() != null) {
+            return mask;
+        }
+        int[] moves = new int[ChessPosition.MAX_MOVES];
+        int count = ((ChessPosition) statistics.getExtraInfo()).generateMoves(moves);
+        for(int i = 0; i < count; i++) {
+            BitBoard.set(mask, ChessPosition.to(moves[i]));
+        }
+        return mask;
+    }
 
+    /**
+     * Every legal move, the piece of a promotion being the piece type promoted to.
+     */
     @Override
-    public boolean placePieceValidationCheck(Move move, GameStatistics statistics) {
-        if( ! (statistics.getPieceGrid()[move.end.y][move.end.x] instanceof PieceImplMonochrome pieceImplMonochrome) ) {
-            throw new IllegalArgumentException("Invalid Piece implementation");
+    public List<Move> generateMoves(GameStatistics statistics) {
+        if(statistics.getWinner() != null) {
+            return new ArrayList<>();
+        }
+        ChessPosition position = (ChessPosition) statistics.getExtraInfo();
+        int[] moves = new int[ChessPosition.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        List<Move> result = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            result.add(toMove(moves[i], position));
         }
-        return pieceImplMonochrome.getPlayer() == Player.NONE;
+        return result;
     }
 
+    /**
+     * @return the move of a position move, in grid coordinates
+     */
+    public static Move toMove(int move, ChessPosition position) {
+        int promotion = ChessPosition.promotion(move);
+        PieceImplChess piece = new PieceImplChess();
+        piece.setPlayer(ChessPosition.player(position.pieceAt(ChessPosition.from(move))));
+        if(promotion != ChessPosition.EMPTY) {
+            piece.setPieceType(ChessPosition.pieceType(promotion));
+        }
+        return new Move(point(ChessPosition.from(move)), point(ChessPosition.to(move)), piece);
+    }
+
+    private static int square(Point point) {
+        return (point.y - 1) * SIZE + point.x - 1;
+    }
+
+    private static Point point(int square) {
+        return new Point(square % SIZE + 1, square / SIZE + 1);
+    }
+
+    /**
+     * The position already holds the side to move, the game statistics follow it.
+     */
     @Override
     public void nextPlayer(GameStatistics statistics) {
         statistics.switchPlayer();
     }
 
     @Override
-    public boolean placePiece(Move move, GameStatistics statistics) {
-        if(!placePieceValidationCheck(move, statistics)) {
-            return false;
+    public boolean placePiece(Move move, GameStatistics statistics) throws GameException {
+        int chessMove = findMove(move, statistics);
+        ChessPosition position = (ChessPosition) statistics.getExtraInfo();
+        statistics.pushUndoRecord(new UndoRecord(
+                ChessPosition.to(chessMove),
+                statistics.getCurrentPlayer(),
+                statistics.getRound(),
+                null,
+                chessMove));
+        long key = position.getKey();
+        position.make(chessMove);
+        statistics.xorHash(key ^ position.getKey());
+        if(ChessPosition.isCapture(chessMove)) {
+            statistics.addEmptySquares(1);
         }
-        statistics.getPieceGrid()[move.end.y][move.end.x].setPiece(move.piece);
-        statistics.getPieceGrid()[move.start.y][move.start.x].setPiece(new PieceImplChess());
+        syncGrid(chessMove, statistics);
         statistics.addMove(move);
         return true;
     }
 
+    @Override
+    public boolean unmakeMove(GameStatistics statistics) {
+        UndoRecord record = statistics.popUndoRecord();
+        if(record == null) {
+            return false;
+        }
+        ChessPosition position = (ChessPosition) statistics.getExtraInfo();
+        long key = position.getKey();
+        position.unmake();
+        statistics.xorHash(key ^ position.getKey());
+        if(ChessPosition.isCapture(record.flags)) {
+            statistics.addEmptySquares(-1);
+        }
+        syncGrid(record.flags, statistics);
+        statistics.removeLastMove();
+        statistics.restoreTurn(record.player, record.round);
+        return true;
+    }
+
+    // copies the squares a move touches from the position to the grid
+    private void syncGrid(int move, GameStatistics statistics) {
+        ChessPosition position = (ChessPosition) statistics.getExtraInfo();
+        int from = ChessPosition.from(move);
+        int to = ChessPosition.to(move);
+        int[] squares = switch (ChessPosition.flags(move)) {
+            case ChessPosition.EN_PASSANT -> new int[]{from, to, from - from % SIZE + to % SIZE};
+            case ChessPosition.KING_CASTLE -> new int[]{from, to, to + 1, to - 1};
+            case ChessPosition.QUEEN_CASTLE -> new int[]{from, to, to - 2, to + 1};
+            default -> new int[]{from, to};
+        };
+        for(int square : squares) {
+            syncSquare(statistics, position, square);
+        }
+    }
+
+    /**
+     * Mate wins, stalemate, the fifty move rule, a threefold repetition
+     * and too little material to mate draw.
+     */
     @Override
     public boolean gameOverCheck(GameStatistics statistics) {
-        if(!(statistics.getPieceGrid() instanceof PieceImplChess[][] pieceGridImplChess)) {
-            throw new IllegalArgumentException("Invalid Piece implementation");
-        }
-        int count = 0;
-        for(int i = 0; i < 8; i++) {
-            for(int j = 0; j < 8; j++) {
-                if(pieceGridImplChess[i][j].getPieceType() == ChessPieceType.KING) {
-                    count ++;
-                }
-            }
+        ChessPosition position = (ChessPosition) statistics.getExtraInfo();
+        if(!position.hasLegalMove()) {
+            Player rival = statistics.getCurrentPlayer() == Player.WHITE ? Player.BLACK : Player.WHITE;
+            statistics.setWinner(position.inCheck() ? rival : Player.NONE);
+            return true;
+        }
+        if(position.getHalfmoves() >= FIFTY_MOVES || position.repetitions() >= 2 || position.insufficientMaterial()) {
+            statistics.setWinner(Player.NONE);
+            return true;
         }
-        return count == 1;
+        return false;
     }
 
     @Override
@@ -122,4 +320,12 @@ public class GameRuleImplChess implements GameRule {
     public int getBlackScore(GameStatistics statistics) {
         return statistics.getWinner() == Player.BLACK ? 1:0;
     }
+
+    /**
+     * Material and piece placement of the position.
+     */
+    @Override
+    public int evaluate(GameStatistics statistics) {
+        return ((ChessPosition) statistics.getExtraInfo()).evaluate();
+    }
 }
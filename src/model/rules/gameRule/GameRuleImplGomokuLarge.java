@@ -0,0 +1,265 @@
+package model.rules.gameRule;
+
+import model.Board;
+import model.exceptions.GameException;
+import model.exceptions.OccupiedPositionException;
+import model.exceptions.OutOfBoardException;
+import model.pieces.PieceImplMonochrome;
+import model.enums.Player;
+import model.structs.GameStatistics;
+import model.structs.Move;
+import model.structs.MoveLog;
+import model.structs.Point;
+import model.structs.StoneGrid;
+import model.structs.UndoRecord;
+import model.structs.Zobrist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gomoku on boards beyond {@link Board#MAX_BOARD_SIZE}, up to {@value #MAX_SPARSE_BOARD_SIZE} a side.
+ *
+ * <p>There is no piece grid, the stones live in a {@link StoneGrid} in the extra info,
+ * dense for moderate boards and chunked for huge ones, so memory grows with the stones placed.
+ * Squares are numbered (y-1)*width + (x-1) as in the {@link model.structs.BitBoard} layout,
+ * but no square masks are kept.
+ */
+public class GameRuleImplGomokuLarge extends AbstractGameRuleMonochrome {
+    private static final GameRuleImplGomokuLarge instance = new GameRuleImplGomokuLarge();
+
+    public static GameRuleImplGomokuLarge getGameRule() {
+        return instance;
+    }
+
+    private GameRuleImplGomokuLarge() {}
+
+    /** largest height or width, keeps square numbers within an int */
+    public static final int MAX_SPARSE_BOARD_SIZE = 1 << 15;
+
+    /** stones in a row that win */
+    private static final int WIN_LENGTH = 5;
+
+    /** one direction of each line through a square, the other is its negation */
+    private final static Point[] LINES = {
+            new Point(1,0), new Point(0,1), new Point(1,1), new Point(1,-1)
+    };
+
+    private static class ExtraInfo{
+        private final StoneGrid grid;
+        public ExtraInfo(StoneGrid grid) {
+            this.grid = grid;
+        }
+    }
+
+    @Override
+    public int getMaxBoardSize() {
+        return MAX_SPARSE_BOARD_SIZE;
+    }
+
+    @Override
+    public boolean hasGrid() {
+        return false;
+    }
+
+    @Override
+    public void initializeGrid(GameStatistics statistics){}
+
+    @Override
+    public void initializeExtraInfo(GameStatistics statistics) {
+        statistics.setExtraInfo(new ExtraInfo(StoneGrid.of(statistics.getHeight(), statistics.getWidth())));
+    }
+
+    @Override
+    public void copyExtraInfo(GameStatistics source, GameStatistics target) {
+        target.setExtraInfo(new ExtraInfo(getStoneGrid(source).copy()));
+    }
+
+    /**
+     * @return the stones of the board, read only for everyone but the rule
+     */
+    public StoneGrid getStoneGrid(GameStatistics statistics) {
+        return ((ExtraInfo) statistics.getExtraInfo()).grid;
+    }
+
+    @Override
+    public boolean placePieceValidationCheck(Move move, GameStatistics statistics) throws GameException {
+        if( move.end.x <= 0 || move.end.x > statistics.getWidth() ||
+                move.end.y <= 0 || move.end.y > statistics.getHeight() ) {
+            throw new OutOfBoardException(move.end);
+        }
+        if( !(move.piece instanceof PieceImplMonochrome) ) {
+            throw new IllegalArgumentException("Invalid Piece implementation");
+        }
+        if( getStoneGrid(statistics).get(move.end.x, move.end.y) != Player.NONE ) {
+            throw new OccupiedPositionException(move.end);
+        }
+        return true;
+    }
+
+    /**
+     * Square masks would grow with the board area, use {@link #generateSearchMoves} instead.
+     * Refused as for every rule without a grid, see {@link GameRule#getValidMoves}.
+     */
+    @Override
+    public long[] getValidMoves(GameStatistics statistics) {
+        throw new UnsupportedOperationException("No square masks on boards beyond " + Board.MAX_BOARD_SIZE);
+    }
+
+    /**
+     * Every empty square, so the cost grows with the board area: for perft on modest boards.
+     */
+    @Override
+    public List<Move> generateMoves(GameStatistics statistics) {
+        List<Move> moves = new ArrayList<>();
+        if(statistics.getWinner() != null) {
+            return moves;
+        }
+        StoneGrid grid = getStoneGrid(statistics);
+        for(int y = 1; y <= statistics.getHeight(); y++) {
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                if(grid.get(x, y) == Player.NONE) {
+                    moves.add(new Move(new Point(0,0), new Point(x, y), new PieceImplMonochrome()));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Empty squares within {@link CandidateSet#RADIUS} of a stone, the centre on an empty board.
+     * Found from the stones played, so the cost grows with the stones and not the board.
+     */
+    @Override
+    public List<Move> generateSearchMoves(GameStatistics statistics) {
+        List<Move> moves = new ArrayList<>();
+        if(statistics.getWinner() != null) {
+            return moves;
+        }
+        StoneGrid grid = getStoneGrid(statistics);
+        int width = statistics.getWidth();
+        int height = statistics.getHeight();
+        if(grid.getStones() == 0) {
+            moves.add(new Move(new Point(0,0), new Point((width + 1) / 2, (height + 1) / 2), new PieceImplMonochrome()));
+            return moves;
+        }
+
+        int radius = CandidateSet.RADIUS;
+        MoveLog stones = statistics.getMoves();
+        int[] squares = new int[stones.size() * (2 * radius + 1) * (2 * radius + 1)];
+        int count = 0;
+        for(int i = 0; i < stones.size(); i++) {
+            int stoneX = stones.x(stones.get(i));
+            int stoneY = stones.y(stones.get(i));
+            for(int y = Math.max(1, stoneY - radius); y <= Math.min(height, stoneY + radius); y++) {
+                for(int x = Math.max(1, stoneX - radius); x <= Math.min(width, stoneX + radius); x++) {
+                    if(grid.get(x, y) == Player.NONE) {
+                        squares[count++] = square(x, y, width);
+                    }
+                }
+            }
+        }
+        Arrays.sort(squares, 0, count);
+        for(int i = 0; i < count; i++) {
+            if(i == 0 || squares[i] != squares[i - 1]) {
+                moves.add(new Move(
+                        new Point(0,0),
+                        new Point(squares[i] % width + 1, squares[i] / width + 1),
+                        new PieceImplMonochrome()));
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public void nextPlayer(GameStatistics statistics) {
+        statistics.switchPlayer();
+    }
+
+    @Override
+    public boolean placePiece(Move move, GameStatistics statistics) throws GameException {
+        if(!placePieceValidationCheck(move, statistics)) {
+            return false;
+        }
+        int square = square(move.end.x, move.end.y, statistics.getWidth());
+        statistics.pushUndoRecord(new UndoRecord(
+                square,
+                statistics.getCurrentPlayer(),
+                statistics.getRound(),
+                null,
+                0));
+        getStoneGrid(statistics).set(move.end.x, move.end.y, statistics.getCurrentPlayer());
+        statistics.xorHash(Zobrist.stone(square, statistics.getCurrentPlayer()));
+        statistics.addEmptySquares(-1);
+        move.piece.setPlayer(statistics.getCurrentPlayer());
+        statistics.addMove(move);
+        return true;
+    }
+
+    @Override
+    public boolean unmakeMove(GameStatistics statistics) {
+        UndoRecord record = statistics.popUndoRecord();
+        if(record == null) {
+            return false;
+        }
+        int width = statistics.getWidth();
+        getStoneGrid(statistics).set(record.square % width + 1, record.square / width + 1, Player.NONE);
+        statistics.xorHash(Zobrist.stone(record.square, record.player));
+        statistics.addEmptySquares(1);
+        statistics.removeLastMove();
+        statistics.restoreTurn(record.player, record.round);
+        return true;
+    }
+
+    /**
+     * Only the last stone can complete a row, so only the four lines through it are checked.
+     */
+    @Override
+    public boolean gameOverCheck(GameStatistics statistics) {
+        MoveLog moves = statistics.getMoves();
+        if(!moves.isEmpty()) {
+            Point lastMove = new Point(moves.x(moves.last()), moves.y(moves.last()));
+            StoneGrid grid = getStoneGrid(statistics);
+            for(Point line : LINES) {
+                if(lineLength(lastMove, line, grid) >= WIN_LENGTH) {
+                    statistics.setWinner(grid.get(lastMove.x, lastMove.y));
+                    return true;
+                }
+            }
+        }
+        if(statistics.getEmptySquares() == 0) {
+            statistics.setWinner(Player.NONE);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int getWhiteScore(GameStatistics statistics) {
+        return statistics.getWinner() == Player.WHITE ? 1:0;
+    }
+
+    @Override
+    public int getBlackScore(GameStatistics statistics) {
+        return statistics.getWinner() == Player.BLACK ? 1:0;
+    }
+
+    private static int square(int x, int y, int width) {
+        return (y - 1) * width + (x - 1);
+    }
+
+    // stones of the player at point in a row through it, both directions of the line counted
+    private int lineLength(Point point, Point line, StoneGrid grid) {
+        Player player = grid.get(point.x, point.y);
+        int length = 1;
+        // off the board reads as empty, so the walks stop at the edge
+        for(int x = point.x + line.x, y = point.y + line.y; grid.get(x, y) == player; x += line.x, y += line.y) {
+            length++;
+        }
+        for(int x = point.x - line.x, y = point.y - line.y; grid.get(x, y) == player; x -= line.x, y -= line.y) {
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,360 @@
+package model.rules.gameRule;
+
+import model.exceptions.GameException;
+import model.exceptions.OccupiedPositionException;
+import model.exceptions.OutOfBoardException;
+import model.pieces.PieceImplMonochrome;
+import model.enums.Player;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
+import model.structs.Move;
+import model.structs.MoveLog;
+import model.structs.UndoRecord;
+import model.structs.Zobrist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Placing game won by a row of stones, set up by a {@link KInARowConfig}.
+ *
+ * <p>Rows are found by the {@link KInARowKernel}, positions valued by the
+ * {@link GomokuLineEvaluator} and moves searched from the {@link CandidateSet}.
+ * A turn of several stones keeps the player to move until the last one is placed.
+ * With captures, a stone flanking exactly two rival stones with another stone
+ * of its owner takes them off the board.
+ */
+public class GameRuleImplKInARow extends AbstractGameRuleMonochrome {
+    private static final Map<KInARowConfig, GameRuleImplKInARow> instances = new ConcurrentHashMap<>();
+
+    public static GameRuleImplKInARow getGameRule(KInARowConfig config) {
+        return instances.computeIfAbsent(config, GameRuleImplKInARow::new);
+    }
+
+    protected GameRuleImplKInARow(KInARowConfig config) {
+        this.config = config;
+    }
+
+    /** evaluation worth of a captured pair, about an open three */
+    private static final int CAPTURE_WEIGHT = 200;
+
+    private final KInARowConfig config;
+
+    public KInARowConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * games start on an empty board
+     */
+    @Override
+    public void initializeGrid(GameStatistics statistics){}
+
+    @Override
+    public int getMinBoardSize() {
+        return config.minBoardSize();
+    }
+
+    @Override
+    public int getMaxBoardSize() {
+        return config.maxBoardSize();
+    }
+
+    private static class ExtraInfo{
+        private final BitBoard bitBoard;
+        private final KInARowKernel kernel;
+        private final GomokuLineEvaluator evaluator;
+        private final CandidateSet candidates;
+        // stones the player to move still places this turn
+        private int stonesLeft;
+        private int blackCaptures;
+        private int whiteCaptures;
+        public ExtraInfo(BitBoard bitBoard, KInARowConfig config) {
+            int winLength = config.winLength(bitBoard.height, bitBoard.width);
+            this.bitBoard = bitBoard;
+            this.kernel = new KInARowKernel(bitBoard, winLength, config.exactLength());
+            this.evaluator = new GomokuLineEvaluator(bitBoard, winLength);
+            this.candidates = new CandidateSet(bitBoard);
+            this.stonesLeft = 1;
+        }
+        public ExtraInfo(ExtraInfo source) {
+            this.bitBoard = source.bitBoard;
+            this.kernel = new KInARowKernel(source.kernel);
+            this.evaluator = new GomokuLineEvaluator(source.evaluator);
+            this.candidates = new CandidateSet(source.candidates);
+            this.stonesLeft = source.stonesLeft;
+            this.blackCaptures = source.blackCaptures;
+            this.whiteCaptures = source.whiteCaptures;
+        }
+        public void place(int square, Player player) {
+            kernel.place(square, player);
+            evaluator.place(square, player);
+            candidates.fill(square);
+            candidates.addStone(square);
+        }
+        public void remove(int square, Player player) {
+            kernel.remove(square, player);
+            evaluator.remove(square, player);
+            candidates.removeStone(square);
+            candidates.vacate(square);
+        }
+        public int getCaptures(Player player) {
+            return player == Player.WHITE ? whiteCaptures : blackCaptures;
+        }
+        public void addCaptures(Player player, int pairs) {
+            if(player == Player.WHITE) {
+                whiteCaptures += pairs;
+            } else {
+                blackCaptures += pairs;
+            }
+        }
+    }
+
+    @Override
+    public void initializeExtraInfo(GameStatistics statistics) {
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        ExtraInfo extraInfo = new ExtraInfo(bitBoard, config);
+        for(int y = 1; y <= statistics.getHeight(); y++) {
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                if(statistics.getPlayer(x, y) != Player.NONE) {
+                    extraInfo.place(bitBoard.index(x, y), statistics.getPlayer(x, y));
+                }
+            }
+        }
+        statistics.setExtraInfo(extraInfo);
+        statistics.xorHash(turnKey(extraInfo.stonesLeft));
+    }
+
+    @Override
+    public void copyExtraInfo(GameStatistics source, GameStatistics target) {
+        target.setExtraInfo(new ExtraInfo((ExtraInfo) source.getExtraInfo()));
+    }
+
+    // the last stone of a turn of several is a different position from the first
+    private long turnKey(int stonesLeft) {
+        return config.stonesPerTurn() > 1 && stonesLeft == 1 ? Zobrist.LAST_STONE : 0;
+    }
+
+    @Override
+    public boolean placePieceValidationCheck(Move move, GameStatistics statistics) throws GameException {
+        if( move.end.x <= 0 || move.end.x > statistics.getWidth() ||
+                move.end.y <= 0 || move.end.y > statistics.getHeight() ) {
+            throw new OutOfBoardException(move.end);
+        }
+        if( !(move.piece instanceof PieceImplMonochrome) ) {
+            throw new IllegalArgumentException("Invalid Piece implementation");
+        }
+
+        if( statistics.getPlayer(move.end.x, move.end.y) != Player.NONE ) {
+            throw new OccupiedPositionException(move.end);
+        }
+
+        return true;
+    }
+
+    /**
+     * Empty squares within {@link CandidateSet#RADIUS} of a stone, every empty square on an empty board.
+     * Other empty squares stay legal to play but are not offered.
+     */
+    @Override
+    public long[] getValidMoves(GameStatistics statistics) {
+        return ((ExtraInfo) statistics.getExtraInfo()).candidates.getCandidates();
+    }
+
+    /**
+     * Every empty square.
+     */
+    @Override
+    public List<Move> generateMoves(GameStatistics statistics) {
+        if(statistics.getWinner() != null) {
+            return new ArrayList<>();
+        }
+        return movesFromMask(((ExtraInfo) statistics.getExtraInfo()).candidates.getEmpty(), statistics);
+    }
+
+    /**
+     * Empty squares near a stone, as offered by {@link #getValidMoves}.
+     */
+    @Override
+    public List<Move> generateSearchMoves(GameStatistics statistics) {
+        if(statistics.getWinner() != null) {
+            return new ArrayList<>();
+        }
+        return movesFromMask(getValidMoves(statistics), statistics);
+    }
+
+    /**
+     * Hands the turn over once the player has placed every stone of it.
+     */
+    @Override
+    public void nextPlayer(GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        statistics.xorHash(turnKey(extraInfo.stonesLeft));
+        if(--extraInfo.stonesLeft == 0) {
+            statistics.switchPlayer();
+            extraInfo.stonesLeft = config.stonesPerTurn();
+        }
+        statistics.xorHash(turnKey(extraInfo.stonesLeft));
+    }
+
+    @Override
+    public boolean placePiece(Move move, GameStatistics statistics) throws GameException {
+        if(!placePieceValidationCheck(move, statistics)) {
+            return false;
+        }
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        int square = extraInfo.bitBoard.index(move.end);
+        long[] captured = config.captureWin() > 0 ? capturedBy(square, player, extraInfo) : null;
+        statistics.pushUndoRecord(new UndoRecord(
+                square,
+                player,
+                statistics.getRound(),
+                captured,
+                extraInfo.stonesLeft));
+        statistics.setPlayer(move.end.x, move.end.y, player);
+        statistics.xorHash(Zobrist.piece(square, player, 0));
+        statistics.addEmptySquares(-1);
+        extraInfo.place(square, player);
+        if(captured != null) {
+            Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+            takeOff(captured, rival, statistics);
+            statistics.xorHash(Zobrist.captures(player, extraInfo.getCaptures(player)));
+            extraInfo.addCaptures(player, BitBoard.bitCount(captured) / 2);
+            statistics.xorHash(Zobrist.captures(player, extraInfo.getCaptures(player)));
+        }
+        move.piece.setPlayer(player);
+        statistics.addMove(move);
+        return true;
+    }
+
+    @Override
+    public boolean unmakeMove(GameStatistics statistics) {
+        UndoRecord record = statistics.popUndoRecord();
+        if(record == null) {
+            return false;
+        }
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        BitBoard bitBoard = extraInfo.bitBoard;
+        if(record.flipped != null) {
+            Player rival = record.player == Player.BLACK ? Player.WHITE : Player.BLACK;
+            statistics.xorHash(Zobrist.captures(record.player, extraInfo.getCaptures(record.player)));
+            extraInfo.addCaptures(record.player, -BitBoard.bitCount(record.flipped) / 2);
+            statistics.xorHash(Zobrist.captures(record.player, extraInfo.getCaptures(record.player)));
+            putBack(record.flipped, rival, statistics);
+        }
+        statistics.setPlayer(bitBoard.x(record.square), bitBoard.y(record.square), Player.NONE);
+        statistics.xorHash(Zobrist.piece(record.square, record.player, 0));
+        statistics.addEmptySquares(1);
+        extraInfo.remove(record.square, record.player);
+        statistics.xorHash(turnKey(extraInfo.stonesLeft) ^ turnKey(record.flags));
+        extraInfo.stonesLeft = record.flags;
+        statistics.removeLastMove();
+        statistics.restoreTurn(record.player, record.round);
+        return true;
+    }
+
+    // rival pairs flanked by the stone placed and another stone of its owner, null if none
+    private long[] capturedBy(int square, Player player, ExtraInfo extraInfo) {
+        BitBoard bitBoard = extraInfo.bitBoard;
+        KInARowKernel kernel = extraInfo.kernel;
+        Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+        int x = bitBoard.x(square);
+        int y = bitBoard.y(square);
+        long[] captured = null;
+        for(int d = 0; d < BitBoard.DIRECTION_COUNT; d++) {
+            int endX = x + 3 * BitBoard.DX[d];
+            int endY = y + 3 * BitBoard.DY[d];
+            if(endX < 1 || endX > bitBoard.width || endY < 1 || endY > bitBoard.height) {
+                continue;
+            }
+            int first = bitBoard.index(x + BitBoard.DX[d], y + BitBoard.DY[d]);
+            int second = bitBoard.index(x + 2 * BitBoard.DX[d], y + 2 * BitBoard.DY[d]);
+            if(kernel.hasStone(first, rival) && kernel.hasStone(second, rival)
+                    && kernel.hasStone(bitBoard.index(endX, endY), player)) {
+                if(captured == null) {
+                    captured = bitBoard.newMask();
+                }
+                BitBoard.set(captured, first);
+                BitBoard.set(captured, second);
+            }
+        }
+        return captured;
+    }
+
+    private void takeOff(long[] squares, Player owner, GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        BitBoard bitBoard = extraInfo.bitBoard;
+        for(int i = BitBoard.nextSetBit(squares, 0); i >= 0; i = BitBoard.nextSetBit(squares, i + 1)) {
+            statistics.setPlayer(bitBoard.x(i), bitBoard.y(i), Player.NONE);
+            statistics.xorHash(Zobrist.piece(i, owner, 0));
+            statistics.addEmptySquares(1);
+            extraInfo.remove(i, owner);
+        }
+    }
+
+    private void putBack(long[] squares, Player owner, GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        BitBoard bitBoard = extraInfo.bitBoard;
+        for(int i = BitBoard.nextSetBit(squares, 0); i >= 0; i = BitBoard.nextSetBit(squares, i + 1)) {
+            statistics.setPlayer(bitBoard.x(i), bitBoard.y(i), owner);
+            statistics.xorHash(Zobrist.piece(i, owner, 0));
+            statistics.addEmptySquares(-1);
+            extraInfo.place(i, owner);
+        }
+    }
+
+    /**
+     * Only the player of the last stone can have just won, by a row or by captures.
+     */
+    @Override
+    public boolean gameOverCheck(GameStatistics statistics) {
+        if(!statistics.getMoves().isEmpty()) {
+            ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+            Player player = MoveLog.player(statistics.getMoves().last());
+            if(extraInfo.kernel.hasRun(player)
+                    || config.captureWin() > 0 && extraInfo.getCaptures(player) >= config.captureWin()) {
+                statistics.setWinner(player);
+                return true;
+            }
+        }
+        if(statistics.getEmptySquares() == 0) {
+            statistics.setWinner(Player.NONE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return captured pairs with captures, otherwise 1 for the winner
+     */
+    @Override
+    public int getWhiteScore(GameStatistics statistics) {
+        if(config.captureWin() > 0) {
+            return ((ExtraInfo) statistics.getExtraInfo()).whiteCaptures;
+        }
+        return statistics.getWinner() == Player.WHITE ? 1:0;
+    }
+
+    @Override
+    public int getBlackScore(GameStatistics statistics) {
+        if(config.captureWin() > 0) {
+            return ((ExtraInfo) statistics.getExtraInfo()).blackCaptures;
+        }
+        return statistics.getWinner() == Player.BLACK ? 1:0;
+    }
+
+    /**
+     * Line patterns of both players, kept up to date move by move, and the pairs captured.
+     */
+    @Override
+    public int evaluate(GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+        return extraInfo.evaluator.getScore(player)
+                + CAPTURE_WEIGHT * (extraInfo.getCaptures(player) - extraInfo.getCaptures(rival));
+    }
+}
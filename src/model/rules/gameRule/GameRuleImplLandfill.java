@@ -3,13 +3,17 @@ package model.rules.gameRule;
 import model.exceptions.GameException;
 import model.exceptions.OccupiedPositionException;
 import model.exceptions.OutOfBoardException;
-import model.pieces.Piece;
 import model.pieces.PieceImplMonochrome;
+import model.structs.BitBoard;
 import model.structs.GameStatistics;
 import model.structs.Move;
-import model.structs.Point;
+import model.structs.UndoRecord;
+import model.structs.Zobrist;
 import model.enums.Player;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class GameRuleImplLandfill extends AbstractGameRuleMonochrome {
 
     private static final GameRuleImplLandfill instance = new GameRuleImplLandfill();
@@ -21,23 +25,25 @@ public class GameRuleImplLandfill extends AbstractGameRuleMonochrome {
     private GameRuleImplLandfill() {}
 
     /**
-     * allocate pieceGrid and set the start pieces
+     * set the start pieces
      */
     @Override
-    public Piece[][] initializeGrid(int height, int width){
-        PieceImplMonochrome[][] pieceGrid = basicInitializeGrid(height, width);
-
-        pieceGrid[height/2][width/2].setPlayer(Player.WHITE);
-        pieceGrid[height/2+1][width/2].setPlayer(Player.BLACK);
-        pieceGrid[height/2][width/2+1].setPlayer(Player.BLACK);
-        pieceGrid[height/2+1][width/2+1].setPlayer(Player.WHITE);
-
-        return pieceGrid;
+    public void initializeGrid(GameStatistics statistics){
+        int height = statistics.getHeight();
+        int width = statistics.getWidth();
+
+        statistics.setPlayer(width/2, height/2, Player.WHITE);
+        statistics.setPlayer(width/2, height/2+1, Player.BLACK);
+        statistics.setPlayer(width/2+1, height/2, Player.BLACK);
+        statistics.setPlayer(width/2+1, height/2+1, Player.WHITE);
     }
 
     @Override
     public void initializeExtraInfo(GameStatistics statistics) {}
 
+    @Override
+    public void copyExtraInfo(GameStatistics source, GameStatistics target) {}
+
 
     /**
      * Check whether it is a valid move to place a piece here
@@ -52,18 +58,39 @@ public class GameRuleImplLandfill extends AbstractGameRuleMonochrome {
                 move.end.y <= 0 || move.end.y > statistics.getWidth() ) {
             throw new OutOfBoardException(move.end);
         }
-        if( ! (statistics.getPieceGrid()[move.end.y][move.end.x] instanceof PieceImplMonochrome pieceImplMonochrome)
-                || !(move.piece instanceof PieceImplMonochrome) ) {
+        if( !(move.piece instanceof PieceImplMonochrome) ) {
             throw new IllegalArgumentException("Invalid Piece implementation");
         }
 
-        if( pieceImplMonochrome.getPlayer() != Player.NONE ) {
+        if( statistics.getPlayer(move.end.x, move.end.y) != Player.NONE ) {
             throw new OccupiedPositionException(move.end);
         }
 
         return true;
     }
 
+    @Override
+    public long[] getValidMoves(GameStatistics statistics) {
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        long[] moves = bitBoard.newMask();
+        for(int y = 1; y <= statistics.getHeight(); y++) {
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                if(statistics.getPlayer(x, y) == Player.NONE) {
+                    BitBoard.set(moves, bitBoard.index(x, y));
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public List<Move> generateMoves(GameStatistics statistics) {
+        if(statistics.getWinner() != null) {
+            return new ArrayList<>();
+        }
+        return movesFromMask(getValidMoves(statistics), statistics);
+    }
+
     @Override
     public void nextPlayer(GameStatistics statistics) {
         statistics.switchPlayer();
@@ -77,12 +104,36 @@ public class GameRuleImplLandfill extends AbstractGameRuleMonochrome {
         if(!placePieceValidationCheck(move, statistics)) {
             return false;
         }
-        statistics.getPieceGrid()[move.end.y][move.end.x].setPlayer(statistics.getCurrentPlayer());
+        int square = BitBoard.of(statistics.getHeight(), statistics.getWidth()).index(move.end);
+        statistics.pushUndoRecord(new UndoRecord(
+                square,
+                statistics.getCurrentPlayer(),
+                statistics.getRound(),
+                null,
+                0));
+        statistics.setPlayer(move.end.x, move.end.y, statistics.getCurrentPlayer());
+        statistics.xorHash(Zobrist.piece(square, statistics.getCurrentPlayer(), 0));
+        statistics.addEmptySquares(-1);
         move.piece.setPlayer(statistics.getCurrentPlayer());
         statistics.addMove(move);
         return true;
     }
 
+    @Override
+    public boolean unmakeMove(GameStatistics statistics) {
+        UndoRecord record = statistics.popUndoRecord();
+        if(record == null) {
+            return false;
+        }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        statistics.setPlayer(bitBoard.x(record.square), bitBoard.y(record.square), Player.NONE);
+        statistics.xorHash(Zobrist.piece(record.square, record.player, 0));
+        statistics.addEmptySquares(1);
+        statistics.removeLastMove();
+        statistics.restoreTurn(record.player, record.round);
+        return true;
+    }
+
     @Override
     public boolean gameOverCheck(GameStatistics statistics) {
         boolean gameOver = checkStale(statistics);
@@ -100,15 +151,8 @@ public class GameRuleImplLandfill extends AbstractGameRuleMonochrome {
         return -1;
     }
 
+    // stale once the board is full
     private boolean checkStale(GameStatistics statistics) {
-        Point boardPoint = new Point(0, 0);
-        for(boardPoint.y = 1; boardPoint.y <= statistics.getHeight(); boardPoint.y++) {
-            for(boardPoint.x = 1; boardPoint.x <= statistics.getWidth(); boardPoint.x++) {
-                if( statistics.getPieceGrid()[boardPoint.y][boardPoint.x].getPlayer() == Player.NONE ) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return statistics.getEmptySquares() == 0;
     }
 }
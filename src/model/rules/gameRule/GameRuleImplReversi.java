@@ -4,13 +4,18 @@ import model.exceptions.GameException;
 import model.exceptions.OccupiedPositionException;
 import model.exceptions.OutOfBoardException;
 import model.exceptions.RuleViolationException;
-import model.pieces.Piece;
 import model.pieces.PieceImplMonochrome;
+import model.structs.BitBoard;
 import model.structs.GameStatistics;
 import model.structs.Move;
 import model.structs.Point;
+import model.structs.UndoRecord;
+import model.structs.Zobrist;
 import model.enums.Player;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class GameRuleImplReversi extends AbstractGameRuleMonochrome {
 
     private static final GameRuleImplReversi instance = new GameRuleImplReversi();
@@ -21,18 +26,42 @@ public class GameRuleImplReversi extends AbstractGameRuleMonochrome {
 
     private GameRuleImplReversi() {}
 
-    private final static Point[] DIRECTIONS = {
-            new Point(1,1),  new Point(1,0),  new Point(1,-1),
-            new Point(0,1),                         new Point(0,-1),
-            new Point(-1,1), new Point(-1,0), new Point(-1,-1)
-    };
+    private static final int STALE_FLAG = 1;
+    private static final int PASSED_FLAG = 2;
+
+    // evaluation weights, per move of mobility, per corner and per X-square next to an empty corner
+    private static final int MOBILITY_WEIGHT = 10;
+    private static final int CORNER_WEIGHT = 60;
+    private static final int X_SQUARE_WEIGHT = 25;
 
     private static class ExtraInfo{
         private boolean stale;
         private boolean passed;
-        public ExtraInfo() {
+        private final ReversiMoveGenerator generator;
+        private final long[] black;
+        private final long[] white;
+        private final long[] moves;
+        private final long[] flipped;
+        private int blackCount;
+        private int whiteCount;
+        private final int[] corners;
+        private final int[] xSquares;
+        public ExtraInfo(BitBoard bitBoard) {
             this.stale = false;
             this.passed = false;
+            this.generator = new ReversiMoveGenerator(bitBoard);
+            this.black = bitBoard.newMask();
+            this.white = bitBoard.newMask();
+            this.moves = bitBoard.newMask();
+            this.flipped = bitBoard.newMask();
+            int height = bitBoard.height;
+            int width = bitBoard.width;
+            this.corners = new int[] {
+                    bitBoard.index(1, 1), bitBoard.index(width, 1),
+                    bitBoard.index(1, height), bitBoard.index(width, height)};
+            this.xSquares = new int[] {
+                    bitBoard.index(2, 2), bitBoard.index(width - 1, 2),
+                    bitBoard.index(2, height - 1), bitBoard.index(width - 1, height - 1)};
         }
         public void setStale(boolean stale) {this.stale = stale;}
         public void reset() {
@@ -44,26 +73,72 @@ public class GameRuleImplReversi extends AbstractGameRuleMonochrome {
             stale = false;
             passed = true;
         }
+        public void addDiscs(Player player, int count) {
+            switch (player) {
+                case WHITE -> whiteCount += count;
+                case BLACK -> blackCount += count;
+                case NONE -> throw new IllegalArgumentException("Invalid Player NONE");
+            }
+        }
+        public long[] discs(Player player) {
+            return switch (player) {
+                case WHITE -> white;
+                case BLACK -> black;
+                case NONE -> throw new IllegalArgumentException("Invalid Player NONE");
+            };
+        }
+        public long[] rivalDiscs(Player player) {
+            return switch (player) {
+                case WHITE -> black;
+                case BLACK -> white;
+                case NONE -> throw new IllegalArgumentException("Invalid Player NONE");
+            };
+        }
     }
 
     /**
-     * allocate pieceGrid and set the start pieces
+     * set the start pieces
      */
     @Override
-    public Piece[][] initializeGrid(int height, int width){
-        PieceImplMonochrome[][] pieceGrid = basicInitializeGrid(height, width);
+    public void initializeGrid(GameStatistics statistics){
+        int height = statistics.getHeight();
+        int width = statistics.getWidth();
 
-        pieceGrid[height/2][width/2].setPlayer(Player.WHITE);
-        pieceGrid[height/2+1][width/2].setPlayer(Player.BLACK);
-        pieceGrid[height/2][width/2+1].setPlayer(Player.BLACK);
-        pieceGrid[height/2+1][width/2+1].setPlayer(Player.WHITE);
-
-        return pieceGrid;
+        statistics.setPlayer(width/2, height/2, Player.WHITE);
+        statistics.setPlayer(width/2, height/2+1, Player.BLACK);
+        statistics.setPlayer(width/2+1, height/2, Player.BLACK);
+        statistics.setPlayer(width/2+1, height/2+1, Player.WHITE);
     }
 
     @Override
     public void initializeExtraInfo(GameStatistics statistics) {
-        statistics.setExtraInfo(new ExtraInfo());
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        ExtraInfo extraInfo = new ExtraInfo(bitBoard);
+        for(int y = 1; y <= statistics.getHeight(); y++) {
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                switch (statistics.getPlayer(x, y)) {
+                    case WHITE -> BitBoard.set(extraInfo.white, bitBoard.index(x, y));
+                    case BLACK -> BitBoard.set(extraInfo.black, bitBoard.index(x, y));
+                    default -> {}
+                }
+            }
+        }
+        extraInfo.whiteCount = BitBoard.bitCount(extraInfo.white);
+        extraInfo.blackCount = BitBoard.bitCount(extraInfo.black);
+        statistics.setExtraInfo(extraInfo);
+    }
+
+    @Override
+    public void copyExtraInfo(GameStatistics source, GameStatistics target) {
+        ExtraInfo sourceInfo = (ExtraInfo) source.getExtraInfo();
+        ExtraInfo extraInfo = new ExtraInfo(sourceInfo.generator.getBitBoard());
+        extraInfo.stale = sourceInfo.stale;
+        extraInfo.passed = sourceInfo.passed;
+        System.arraycopy(sourceInfo.black, 0, extraInfo.black, 0, extraInfo.black.length);
+        System.arraycopy(sourceInfo.white, 0, extraInfo.white, 0, extraInfo.white.length);
+        extraInfo.blackCount = sourceInfo.blackCount;
+        extraInfo.whiteCount = sourceInfo.whiteCount;
+        target.setExtraInfo(extraInfo);
     }
 
     /**
@@ -85,30 +160,53 @@ public class GameRuleImplReversi extends AbstractGameRuleMonochrome {
         }
 
         /* out of board check */
-        if( move.end.x <= 0 || move.end.x > statistics.getHeight() ||
-                move.end.y <= 0 || move.end.y > statistics.getWidth() ) {
+        if( move.end.x <= 0 || move.end.x > statistics.getWidth() ||
+                move.end.y <= 0 || move.end.y > statistics.getHeight() ) {
             throw new OutOfBoardException(move.end);
         }
 
         /* piece type check */
-        if( ! (statistics.getPieceGrid()[move.end.y][move.end.x] instanceof PieceImplMonochrome pieceImplMonochrome)
-                || !(move.piece instanceof PieceImplMonochrome)) {
+        if( !(move.piece instanceof PieceImplMonochrome)) {
             throw new IllegalArgumentException("Invalid Piece implementation");
         }
 
         /* place occupation check */
-        if(pieceImplMonochrome.getPlayer() != Player.NONE) {
+        if(statistics.getPlayer(move.end.x, move.end.y) != Player.NONE) {
             throw new OccupiedPositionException(move.end);
         }
 
         /* flip check */
-        if(flipPieces(move.end, statistics.getCurrentPlayer(), statistics.getPieceGrid(), false)==0) {
+        if(flipPieces(move.end, statistics, false)==0) {
             throw new RuleViolationException("One move shall flip at least 1 piece");
         }
 
         return true;
     }
 
+    @Override
+    public long[] getValidMoves(GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        long[] moves = extraInfo.generator.getBitBoard().newMask();
+        extraInfo.generator.legalMoves(extraInfo.discs(player), extraInfo.rivalDiscs(player), moves);
+        return moves;
+    }
+
+    /**
+     * Legal placements, or the single pass move when the player is stuck.
+     */
+    @Override
+    public List<Move> generateMoves(GameStatistics statistics) {
+        if(statistics.getWinner() != null) {
+            return new ArrayList<>();
+        }
+        List<Move> moves = movesFromMask(getValidMoves(statistics), statistics);
+        if(moves.isEmpty() && ((ExtraInfo) statistics.getExtraInfo()).canPass()) {
+            moves.add(new Move(new Point(0, 0), new Point(0, 0)));
+        }
+        return moves;
+    }
+
     @Override
     public void nextPlayer(GameStatistics statistics) {
         statistics.switchPlayer();
@@ -120,96 +218,197 @@ public class GameRuleImplReversi extends AbstractGameRuleMonochrome {
             return false;
         }
         ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        int flags = (extraInfo.stale ? STALE_FLAG : 0) | (extraInfo.passed ? PASSED_FLAG : 0);
+        if(extraInfo.passed) {
+            statistics.xorHash(Zobrist.PASSED);
+        }
         extraInfo.reset();
 
         /* pass logic */
         if(move.end.x == 0 && move.end.y == 0) {
             extraInfo.pass();
+            statistics.xorHash(Zobrist.PASSED);
+            statistics.pushUndoRecord(new UndoRecord(
+                    -1, statistics.getCurrentPlayer(), statistics.getRound(), null, flags));
+            statistics.addPass();
             return true;
         }
 
-        statistics.getPieceGrid()[move.end.y][move.end.x].setPlayer(statistics.getCurrentPlayer());
-        flipPieces(move.end, statistics.getCurrentPlayer(), statistics.getPieceGrid(), true);
+        extraInfo.addDiscs(statistics.getCurrentPlayer(), 1);
+        applyFlips(move.end, statistics);
+        statistics.pushUndoRecord(new UndoRecord(
+                extraInfo.generator.getBitBoard().index(move.end),
+                statistics.getCurrentPlayer(),
+                statistics.getRound(),
+                extraInfo.flipped.clone(),
+                flags));
         move.piece.setPlayer(statistics.getCurrentPlayer());
         statistics.addMove(move);
         return true;
     }
 
+    @Override
+    public boolean unmakeMove(GameStatistics statistics) {
+        UndoRecord record = statistics.popUndoRecord();
+        if(record == null) {
+            return false;
+        }
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        boolean passed = (record.flags & PASSED_FLAG) != 0;
+        if(extraInfo.passed != passed) {
+            statistics.xorHash(Zobrist.PASSED);
+        }
+        extraInfo.stale = (record.flags & STALE_FLAG) != 0;
+        extraInfo.passed = passed;
+
+        if(!record.isPass()) {
+            BitBoard bitBoard = extraInfo.generator.getBitBoard();
+            Player rivalPlayer = record.player == Player.WHITE ? Player.BLACK : Player.WHITE;
+            long[] own = extraInfo.discs(record.player);
+            long[] rival = extraInfo.rivalDiscs(record.player);
+
+            BitBoard.clear(own, record.square);
+            statistics.setPlayer(bitBoard.x(record.square), bitBoard.y(record.square), Player.NONE);
+            statistics.addEmptySquares(1);
+            statistics.xorHash(Zobrist.piece(record.square, record.player, 0));
+            for(int i = BitBoard.nextSetBit(record.flipped, 0); i >= 0; i = BitBoard.nextSetBit(record.flipped, i + 1)) {
+                statistics.setPlayer(bitBoard.x(i), bitBoard.y(i), rivalPlayer);
+                statistics.xorHash(Zobrist.piece(i, record.player, 0) ^ Zobrist.piece(i, rivalPlayer, 0));
+            }
+            for(int w = 0; w < own.length; w++) {
+                own[w] &= ~record.flipped[w];
+                rival[w] |= record.flipped[w];
+            }
+            int flipCount = BitBoard.bitCount(record.flipped);
+            extraInfo.addDiscs(record.player, -flipCount - 1);
+            extraInfo.addDiscs(rivalPlayer, flipCount);
+        }
+
+        statistics.removeLastMove();
+        statistics.restoreTurn(record.player, record.round);
+        return true;
+    }
+
+    /**
+     * The usual reversi figures count finished games, 212258800 at depth 11 on 8x8.
+     */
+    @Override
+    public boolean perftCountsFinishedGames() {
+        return true;
+    }
+
     @Override
     public boolean gameOverCheck(GameStatistics statistics) {
         ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
         extraInfo.setStale(checkStale(statistics));
-        if(extraInfo.gameOver()
-                || statistics.getMoves().size() ==
-                statistics.getHeight() * statistics.getWidth() - 4) {
+        if(extraInfo.gameOver() || statistics.getEmptySquares() == 0) {
             statistics.setWinner(calculateWinner(statistics));
             return true;
         }
         return false;
     }
 
+    /**
+     * Mobility, corners and X-squares next to empty corners, with the disc count as tie-break.
+     */
     @Override
-    public int getWhiteScore(GameStatistics statistics) {
-        int whiteCount = 0;
-        for(Piece[] pieces : statistics.getPieceGrid()) {
-            for(Piece piece : pieces) {
-                if(piece.getPlayer() == Player.WHITE) {
-                    whiteCount++;
-                }
+    public int evaluate(GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        long[] own = extraInfo.discs(player);
+        long[] rival = extraInfo.rivalDiscs(player);
+
+        extraInfo.generator.legalMoves(own, rival, extraInfo.moves);
+        int mobility = BitBoard.bitCount(extraInfo.moves);
+        extraInfo.generator.legalMoves(rival, own, extraInfo.moves);
+        mobility -= BitBoard.bitCount(extraInfo.moves);
+
+        int corners = 0;
+        int xSquares = 0;
+        for(int i = 0; i < extraInfo.corners.length; i++) {
+            int corner = extraInfo.corners[i];
+            int xSquare = extraInfo.xSquares[i];
+            if(BitBoard.get(own, corner)) {
+                corners++;
+            } else if(BitBoard.get(rival, corner)) {
+                corners--;
+            } else if(BitBoard.get(own, xSquare)) {
+                xSquares++;
+            } else if(BitBoard.get(rival, xSquare)) {
+                xSquares--;
             }
         }
-        return whiteCount;
+
+        int discs = BitBoard.bitCount(own) - BitBoard.bitCount(rival);
+        return MOBILITY_WEIGHT * mobility + CORNER_WEIGHT * corners - X_SQUARE_WEIGHT * xSquares + discs;
+    }
+
+    /**
+     * Copies the disc mask of a player, in the {@link BitBoard} layout of the board.
+     */
+    public long[] getDiscs(GameStatistics statistics, Player player) {
+        return ((ExtraInfo) statistics.getExtraInfo()).discs(player).clone();
+    }
+
+    @Override
+    public int getWhiteScore(GameStatistics statistics) {
+        return ((ExtraInfo) statistics.getExtraInfo()).whiteCount;
     }
 
     @Override
     public int getBlackScore(GameStatistics statistics) {
-        int blackCount = 0;
-        for(Piece[] pieces : statistics.getPieceGrid()) {
-            for(Piece piece : pieces) {
-                if(piece.getPlayer() == Player.BLACK) {
-                    blackCount++;
-                }
-            }
-        }
-        return blackCount;
+        return ((ExtraInfo) statistics.getExtraInfo()).blackCount;
     }
 
     /**
-     * recursively check/do a flip
-     * @param applyChange flip the pieces or not
-     * @return the number of pieces (could be) flipped (negative means operation failed)
+     * check/do a flip through the bitboard generator
+     * @param applyChange place the piece and flip the pieces or not
+     * @return the number of pieces (could be) flipped
      */
-    private int flipPieces(Point point, Player player, Piece[][] pieceGrid, boolean applyChange) {
-        Point temp = new Point(0,0);
-        int flipCount = 0;
-        Player rival = switch (player) {
-            case WHITE -> Player.BLACK;
-            case BLACK -> Player.WHITE;
-            case NONE -> throw new IllegalArgumentException("Invalid Player NONE");
-        };
-
-        for(Point direction : DIRECTIONS) {
-            temp.set(point)
-                .translate(direction);
-            while(pieceGrid[temp.y][temp.x].getPlayer() == rival) {
-                temp.translate(direction);
-            }
-            if(pieceGrid[temp.y][temp.x].getPlayer() == Player.NONE) {
-                continue;
-            }
-            temp.detranslate(direction);
-            while(pieceGrid[temp.y][temp.x].getPlayer() == rival) {
-                flipCount++;
-                if (applyChange) {
-                    pieceGrid[temp.y][temp.x].setPlayer(player);
-                }
-                temp.detranslate(direction);
-            }
-        }
+    private int flipPieces(Point point, GameStatistics statistics, boolean applyChange) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        BitBoard bitBoard = extraInfo.generator.getBitBoard();
+        int square = bitBoard.index(point);
 
+        int flipCount = extraInfo.generator.flips(
+                extraInfo.discs(player), extraInfo.rivalDiscs(player), square, extraInfo.flipped);
+        if(!applyChange || flipCount == 0) {
+            return flipCount;
+        }
+        applyFlips(point, statistics);
         return flipCount;
     }
 
+    /**
+     * place the piece and flip the discs left in the flipped mask by the last {@link #flipPieces} check
+     */
+    private void applyFlips(Point point, GameStatistics statistics) {
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        Player rivalPlayer = player == Player.WHITE ? Player.BLACK : Player.WHITE;
+        BitBoard bitBoard = extraInfo.generator.getBitBoard();
+        long[] own = extraInfo.discs(player);
+        long[] rival = extraInfo.rivalDiscs(player);
+        int square = bitBoard.index(point);
+
+        statistics.setPlayer(point.x, point.y, player);
+        statistics.addEmptySquares(-1);
+        BitBoard.set(own, square);
+        statistics.xorHash(Zobrist.piece(square, player, 0));
+        for(int i = BitBoard.nextSetBit(extraInfo.flipped, 0); i >= 0; i = BitBoard.nextSetBit(extraInfo.flipped, i + 1)) {
+            statistics.setPlayer(bitBoard.x(i), bitBoard.y(i), player);
+            statistics.xorHash(Zobrist.piece(i, player, 0) ^ Zobrist.piece(i, rivalPlayer, 0));
+        }
+        for(int w = 0; w < own.length; w++) {
+            own[w] |= extraInfo.flipped[w];
+            rival[w] &= ~extraInfo.flipped[w];
+        }
+        int flipCount = BitBoard.bitCount(extraInfo.flipped);
+        extraInfo.addDiscs(player, flipCount);
+        extraInfo.addDiscs(rivalPlayer, -flipCount);
+    }
+
     private Player calculateWinner(GameStatistics statistics) {
         int whiteCount = getWhiteScore(statistics);
         int blackCount = getBlackScore(statistics);
@@ -224,17 +423,11 @@ public class GameRuleImplReversi extends AbstractGameRuleMonochrome {
     }
 
     private boolean checkStale(GameStatistics statistics) {
-        Piece piece = new PieceImplMonochrome();
-        piece.setPlayer(statistics.getCurrentPlayer());
-        Move move = new Move(new Point(0,0), new Point(0,0), piece);
-        for(move.end.y = 1; move.end.y <= statistics.getHeight(); move.end.y++) {
-            for(move.end.x = 1; move.end.x <= statistics.getWidth(); move.end.x++) {
-                try {
-                    if(placePieceValidationCheck(move, statistics))
-                        return false;
-                } catch (GameException _) {}
-            }
-        }
-        return true;
+        ExtraInfo extraInfo = (ExtraInfo) statistics.getExtraInfo();
+        Player player = statistics.getCurrentPlayer();
+        return !extraInfo.generator.legalMoves(
+                extraInfo.discs(player),
+                extraInfo.rivalDiscs(player),
+                extraInfo.moves);
     }
 }
@@ -0,0 +1,210 @@
+package model.rules.gameRule;
+
+import model.enums.Player;
+import model.structs.BitBoard;
+
+/**
+ * Incremental line pattern evaluation for k-in-a-row boards.
+ *
+ * <p>Every row, column and diagonal is kept as two bit planes, one per player,
+ * bit i being the i-th square along the line. A line is scored by sliding a window
+ * of the win length over it, each window read from a table indexed by its two planes.
+ * A window holding stones of both players is dead and scores nothing, a live one
+ * scores by the stones in it, contiguous ones a little higher. The usual shapes fall
+ * out of the window counts: an open four fills two windows, a closed or broken four one,
+ * an open three up to three, a broken three two and a closed three one.
+ *
+ * <p>Line scores are cached and a stone only changes the four lines through it,
+ * so a move costs four line rescans and an evaluation a field read.
+ *
+ * <p>An instance belongs to one game, copies share the read only tables.
+ */
+public final class GomokuLineEvaluator {
+
+    /** longest row scored, the window table has 4^length entries */
+    public static final int MAX_WIN_LENGTH = 8;
+
+    /** rows, columns, diagonals and anti-diagonals */
+    private static final int DIRECTIONS = 4;
+    /** stones beyond five add nothing to a window, keeping scores far below a won game */
+    private static final int MAX_WEIGHTED_STONES = 5;
+
+    private final int winLength;
+    private final int windowMask;
+    /** window score for black minus white, indexed by black bits | white bits << win length */
+    private final int[] table;
+    /** line and position along it of each square, per direction */
+    private final int[] lineOf;
+    private final int[] positionOf;
+    private final int[] lineLength;
+
+    private final int[] black;
+    private final int[] white;
+    private final int[] lineScore;
+    private int score;
+
+    public GomokuLineEvaluator(BitBoard bitBoard, int winLength) {
+        if(winLength < 2 || winLength > MAX_WIN_LENGTH) {
+            throw new IllegalArgumentException("Invalid win length: " + winLength);
+        }
+        int height = bitBoard.height;
+        int width = bitBoard.width;
+        this.winLength = winLength;
+        this.windowMask = (1 << winLength) - 1;
+        this.table = buildTable(winLength);
+
+        // rows, then columns, then diagonals by x - y, then anti-diagonals by x + y
+        int diagonals = height + width - 1;
+        int lines = height + width + 2 * diagonals;
+        this.lineOf = new int[DIRECTIONS * bitBoard.size];
+        this.positionOf = new int[DIRECTIONS * bitBoard.size];
+        this.lineLength = new int[lines];
+        for(int y = 1; y <= height; y++) {
+            for(int x = 1; x <= width; x++) {
+                int square = DIRECTIONS * bitBoard.index(x, y);
+                int antiDiagonal = x + y - 2;
+                setLine(square, y - 1, x - 1);
+                setLine(square + 1, height + x - 1, y - 1);
+                setLine(square + 2, height + width + x - y + height - 1, Math.min(x, y) - 1);
+                setLine(square + 3, height + width + diagonals + antiDiagonal,
+                        x - 1 - Math.max(0, antiDiagonal - height + 1));
+            }
+        }
+
+        this.black = new int[lines];
+        this.white = new int[lines];
+        this.lineScore = new int[lines];
+        this.score = 0;
+    }
+
+    public GomokuLineEvaluator(GomokuLineEvaluator source) {
+        this.winLength = source.winLength;
+        this.windowMask = source.windowMask;
+        this.table = source.table;
+        this.lineOf = source.lineOf;
+        this.positionOf = source.positionOf;
+        this.lineLength = source.lineLength;
+        this.black = source.black.clone();
+        this.white = source.white.clone();
+        this.lineScore = source.lineScore.clone();
+        this.score = source.score;
+    }
+
+    /**
+     * @return pattern score of the board, higher is better for black
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return pattern score of the board for the given player
+     */
+    public int getScore(Player player) {
+        return player == Player.WHITE ? -score : score;
+    }
+
+    /**
+     * Puts a stone on an empty square, in the {@link BitBoard} layout of the board.
+     */
+    public void place(int square, Player player) {
+        update(square, player != Player.WHITE, player == Player.WHITE, true);
+    }
+
+    /**
+     * Takes a stone back off its square.
+     */
+    public void remove(int square, Player player) {
+        update(square, player != Player.WHITE, player == Player.WHITE, false);
+    }
+
+    /**
+     * Marks an empty square that never takes a stone, e.g. a crater or a barrier.
+     * It sits in both planes, so every window through it is dead for both players.
+     */
+    public void block(int square) {
+        update(square, true, true, true);
+    }
+
+    /**
+     * Opens a blocked square again.
+     */
+    public void unblock(int square) {
+        update(square, true, true, false);
+    }
+
+    /**
+     * Tells whether a stone takes part in a threat: some live window through it
+     * holds at least the given number of stones of its owner.
+     */
+    public boolean inWindow(int square, Player player, int stones) {
+        for(int i = DIRECTIONS * square, end = i + DIRECTIONS; i < end; i++) {
+            int line = lineOf[i];
+            int own = player == Player.WHITE ? white[line] : black[line];
+            int rival = player == Player.WHITE ? black[line] : white[line];
+            for(int shift = Math.max(0, positionOf[i] - winLength + 1),
+                last = Math.min(positionOf[i], lineLength[line] - winLength); shift <= last; shift++) {
+                if((rival >>> shift & windowMask) == 0 && Integer.bitCount(own >>> shift & windowMask) >= stones) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void update(int square, boolean blackPlane, boolean whitePlane, boolean set) {
+        for(int i = DIRECTIONS * square, end = i + DIRECTIONS; i < end; i++) {
+            int line = lineOf[i];
+            int bit = 1 << positionOf[i];
+            if(blackPlane) {
+                black[line] = set ? black[line] | bit : black[line] & ~bit;
+            }
+            if(whitePlane) {
+                white[line] = set ? white[line] | bit : white[line] & ~bit;
+            }
+            int lineScore = scoreLine(line);
+            score += lineScore - this.lineScore[line];
+            this.lineScore[line] = lineScore;
+        }
+    }
+
+    private int scoreLine(int line) {
+        int blackBits = black[line];
+        int whiteBits = white[line];
+        int result = 0;
+        for(int shift = lineLength[line] - winLength; shift >= 0; shift--) {
+            result += table[(blackBits >>> shift & windowMask) | (whiteBits >>> shift & windowMask) << winLength];
+        }
+        return result;
+    }
+
+    private void setLine(int entry, int line, int position) {
+        lineOf[entry] = line;
+        positionOf[entry] = position;
+        lineLength[line] = Math.max(lineLength[line], position + 1);
+    }
+
+    // every pair of window planes, scored for black minus white
+    private static int[] buildTable(int winLength) {
+        int windows = 1 << winLength;
+        int[] table = new int[windows * windows];
+        for(int own = 0; own < windows; own++) {
+            int value = windowValue(own);
+            table[own] = value;
+            table[own << winLength] = -value;
+        }
+        return table;
+    }
+
+    // a live window grows eightfold per stone, a contiguous run of at least two stones adds a quarter
+    private static int windowValue(int stones) {
+        int count = Integer.bitCount(stones);
+        if(count == 0) {
+            return 0;
+        }
+        int value = 1 << 3 * (Math.min(count, MAX_WEIGHTED_STONES) - 1);
+        int run = Integer.numberOfTrailingZeros(stones);
+        boolean contiguous = Integer.bitCount((stones >>> run) + 1) == 1;
+        return count > 1 && contiguous ? value + value / 4 : value;
+    }
+}
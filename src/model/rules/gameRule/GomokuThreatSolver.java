@@ -0,0 +1,550 @@
+package model.rules.gameRule;
+
+import model.enums.Player;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
+import model.structs.Point;
+import model.structs.Zobrist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Threat space solver for gomoku: searches only the forcing moves of the player to move.
+ *
+ * <p>VCF (victory by continuous fours) tries moves that threaten a five, the rival has
+ * exactly one answer to each. VCT (victory by continuous threats) adds threes, moves that
+ * threaten an open four. The rival may answer a three on any square of the open fours it
+ * threatens, or with a four of its own; any other answer loses to the open four, so only
+ * those answers are searched. A found win is proven against every defence.
+ *
+ * <p>Threats are read from the five-square windows through a square. A window holding no
+ * rival stone and no edge with n own stones turns into a five after 5 - n more moves.
+ * New fives and open fours can only run through the last stone, so only its windows are
+ * looked at for them; the threat moves are read from every window of the board.
+ *
+ * <p>Depths count moves of the attacker and grow one by one, so the shortest line is found
+ * first. Failed positions are remembered with their depth and won ones with their winning
+ * move, so the winning line can be read back.
+ *
+ * <p>An instance must not be shared between threads.
+ */
+public final class GomokuThreatSolver {
+
+    /** default attacker moves of a VCF, fours are cheap since every one has a single answer */
+    public static final int DEFAULT_VCF_DEPTH = 30;
+    /** default attacker moves of a VCT */
+    public static final int DEFAULT_VCT_DEPTH = 10;
+    /** default wall-clock budget */
+    public static final long DEFAULT_TIME_MILLIS = 10_000;
+
+    private static final int EMPTY = 0;
+    private static final int BLACK = 1;
+    private static final int WHITE = 2;
+    private static final int WALL = 3;
+    /** border of walls around the board, a window never leaves the array */
+    private static final int PADDING = 4;
+    private static final int WIN_LENGTH = 5;
+    /** nodes between two clock checks, minus one */
+    private static final int CHECK_INTERVAL = 1023;
+
+    /**
+     * Result of a solve.
+     *
+     * @param line winning line, attacker and defender moves alternating and ending on the five,
+     *             empty if no win was found
+     * @param complete true if the search was not cut by the clock, an empty line then proves
+     *                 there is no win within the depth
+     * @param nodes attacker positions searched
+     * @param nanos wall time of the solve
+     */
+    public record Solution(List<Point> line, boolean complete, long nodes, long nanos) {
+        public boolean isWin() {
+            return !line.isEmpty();
+        }
+    }
+
+    private final int maxDepth;
+    private final long timeMillis;
+
+    private int height;
+    private int width;
+    private int stride;
+    private int[] cells;
+    private int[] squares;
+    // every five-square window inside the board, by first square and step
+    private int[] windowFirst;
+    private int[] windowDirection;
+    // scratch lists, copied out before the search goes deeper
+    private int[] buffer;
+    private int[] fiveBuffer;
+    private int[] marks;
+    private int stamp;
+    private int[] directions;
+    private long[][] keys;
+    private long hash;
+    private int attacker;
+    private int defender;
+    private boolean threes;
+
+    // attacker positions: winning move and attacker moves to the five, or the depth they failed at
+    private final Map<Long, Long> proofs = new HashMap<>();
+    private final Map<Long, Integer> failures = new HashMap<>();
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+
+    /**
+     * @param maxDepth most attacker moves of a line
+     * @param timeMillis wall-clock budget, 0 for none
+     */
+    public GomokuThreatSolver(int maxDepth, long timeMillis) {
+        if(maxDepth < 1) {
+            throw new IllegalArgumentException("Invalid depth: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Looks for a forced win of the player to move, the game itself is left untouched.
+     *
+     * @param statistics a running gomoku game
+     * @param threes false for VCF, true for VCT
+     */
+    public Solution solve(GameStatistics statistics, boolean threes) {
+        long start = System.nanoTime();
+        load(statistics);
+        this.threes = threes;
+        this.nodes = 0;
+        this.deadline = timeMillis > 0 ? start + timeMillis * 1_000_000 : Long.MAX_VALUE;
+        this.stopped = false;
+        proofs.clear();
+        failures.clear();
+
+        List<Point> line = new ArrayList<>();
+        int[] fives = allFives(attacker);
+        if(fives.length > 0) {
+            line.add(point(fives[0]));
+        } else {
+            // deepening finds the shortest line, failures of a shallow pass prune the next
+            for(int depth = 1; depth <= maxDepth && !stopped; depth++) {
+                if(attackerNode(depth, -1) > 0) {
+                    readLine(line);
+                    break;
+                }
+            }
+        }
+        return new Solution(line, !stopped, nodes, System.nanoTime() - start);
+    }
+
+    // copies the grid into the padded cell array
+    private void load(GameStatistics statistics) {
+        height = statistics.getHeight();
+        width = statistics.getWidth();
+        stride = width + 2 * PADDING;
+        cells = new int[(height + 2 * PADDING) * stride];
+        keys = new long[3][cells.length];
+        directions = new int[] {1, stride, stride + 1, stride - 1};
+        squares = new int[height * width];
+        buffer = new int[height * width];
+        fiveBuffer = new int[directions.length * WIN_LENGTH];
+        Arrays.fill(cells, WALL);
+        BitBoard bitBoard = BitBoard.of(height, width);
+        hash = 0;
+        for(int y = 1; y <= height; y++) {
+            for(int x = 1; x <= width; x++) {
+                int cell = cell(x, y);
+                int square = bitBoard.index(x, y);
+                squares[square] = cell;
+                keys[BLACK][cell] = Zobrist.piece(square, Player.BLACK, 0);
+                keys[WHITE][cell] = Zobrist.piece(square, Player.WHITE, 0);
+                cells[cell] = switch (statistics.getPlayer(x, y)) {
+                    case BLACK -> BLACK;
+                    case WHITE -> WHITE;
+                    default -> EMPTY;
+                };
+                hash ^= keys[cells[cell]][cell];
+            }
+        }
+        marks = new int[cells.length];
+        stamp = 0;
+        List<int[]> windows = new ArrayList<>();
+        for(int cell : squares) {
+            for(int direction : directions) {
+                if(cells[cell + (WIN_LENGTH - 1) * direction] != WALL) {
+                    windows.add(new int[] {cell, direction});
+                }
+            }
+        }
+        windowFirst = windows.stream().mapToInt(window -> window[0]).toArray();
+        windowDirection = windows.stream().mapToInt(window -> window[1]).toArray();
+        attacker = statistics.getCurrentPlayer() == Player.BLACK ? BLACK : WHITE;
+        defender = BLACK + WHITE - attacker;
+    }
+
+    /**
+     * Attacker to move without a five. Only the rival stone just placed can give the rival one.
+     *
+     * @param reply the rival stone just placed, -1 at the root
+     * @return attacker moves to the five, 0 if there is no win within the depth
+     */
+    private int attackerNode(int depth, int reply) {
+        if(depth == 0 || tick()) {
+            return 0;
+        }
+        Integer failedDepth = failures.get(hash);
+        if(failedDepth != null && failedDepth >= depth) {
+            return 0;
+        }
+        Long proof = proofs.get(hash);
+        if(proof != null) {
+            return (int) (proof >>> 32);
+        }
+
+        // a rival five must be blocked first, two cannot be
+        int[] rivalFives = reply < 0 ? allFives(defender) : fivesAround(defender, reply);
+        int[] candidates;
+        boolean forced = rivalFives.length > 0;
+        if(rivalFives.length > 1) {
+            candidates = new int[0];
+        } else if(forced) {
+            candidates = rivalFives;
+        } else {
+            candidates = threatMoves();
+            // an open four wins at once, without one every new threat runs through its own move
+            for(int move : candidates) {
+                place(move, attacker);
+                int fives = collectFives(attacker, move);
+                remove(move, attacker);
+                if(fives > 1) {
+                    proofs.put(hash, 2L << 32 | move);
+                    return 2;
+                }
+            }
+        }
+
+        for(int move : candidates) {
+            place(move, attacker);
+            int length = defenderNode(depth - 1, move, !forced);
+            remove(move, attacker);
+            if(length > 0) {
+                proofs.put(hash, (long) (length + 1) << 32 | move);
+                return length + 1;
+            }
+            if(stopped) {
+                return 0;
+            }
+        }
+        if(!stopped) {
+            failures.merge(hash, depth, Math::max);
+        }
+        return 0;
+    }
+
+    /**
+     * Rival to move after the attacker played move, the rival has no five.
+     *
+     * @param local true if the attacker had no open four to make before move
+     * @return attacker moves to the five, 0 if the rival holds
+     */
+    private int defenderNode(int depth, int move, boolean local) {
+        int[] fives = fivesAround(attacker, move);
+        if(fives.length > 1) {
+            return 1;
+        }
+        int[] replies;
+        if(fives.length == 1) {
+            replies = fives;
+        } else if(threes) {
+            replies = threeDefences(local ? move : -1);
+            if(replies.length == 0) {
+                return 0;
+            }
+        } else {
+            return 0;
+        }
+
+        int longest = 0;
+        for(int reply : replies) {
+            place(reply, defender);
+            int length = attackerNode(depth, reply);
+            remove(reply, defender);
+            if(length == 0) {
+                return 0;
+            }
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    // fours, then threes for VCT, of the attacker
+    private int[] threatMoves() {
+        stamp++;
+        int count = collectWindowSquares(attacker, WIN_LENGTH - 2, 0);
+        if(threes) {
+            count = collectWindowSquares(attacker, WIN_LENGTH - 3, count);
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Answers to the open fours the attacker threatens: the squares making them and their
+     * five squares, and the rival's own fours. Empty if no open four is threatened.
+     *
+     * @param around the only stone the open fours can run through, -1 to look at the whole board
+     */
+    private int[] threeDefences(int around) {
+        int[] candidates;
+        if(around < 0) {
+            stamp++;
+            candidates = Arrays.copyOf(buffer, collectWindowSquares(attacker, WIN_LENGTH - 2, 0));
+        } else {
+            candidates = lineSquares(around);
+        }
+        stamp++;
+        int count = 0;
+        for(int cell : candidates) {
+            if(cells[cell] != EMPTY || around >= 0 && mostInWindow(cell, attacker) != WIN_LENGTH - 2) {
+                continue;
+            }
+            place(cell, attacker);
+            int fives = collectFives(attacker, cell);
+            remove(cell, attacker);
+            if(fives > 1) {
+                if(mark(cell)) {
+                    buffer[count++] = cell;
+                }
+                for(int i = 0; i < fives; i++) {
+                    if(mark(fiveBuffer[i])) {
+                        buffer[count++] = fiveBuffer[i];
+                    }
+                }
+            }
+        }
+        if(count == 0) {
+            return new int[0];
+        }
+        count = collectWindowSquares(defender, WIN_LENGTH - 2, count);
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Appends the empty squares of the open windows holding the given number of stones
+     * of color to the buffer, skipping squares marked since the last stamp.
+     *
+     * @return new size of the buffer
+     */
+    private int collectWindowSquares(int color, int stones, int count) {
+        for(int w = 0; w < windowFirst.length; w++) {
+            int first = windowFirst[w];
+            int direction = windowDirection[w];
+            int own = 0;
+            boolean open = true;
+            for(int i = 0, c = first; i < WIN_LENGTH && open; i++, c += direction) {
+                if(cells[c] == color) {
+                    own++;
+                } else if(cells[c] != EMPTY) {
+                    open = false;
+                }
+            }
+            if(!open || own != stones) {
+                continue;
+            }
+            for(int i = 0, c = first; i < WIN_LENGTH; i++, c += direction) {
+                if(cells[c] == EMPTY && mark(c)) {
+                    buffer[count++] = c;
+                }
+            }
+        }
+        return count;
+    }
+
+    // marks the cell for the current stamp, false if it already was
+    private boolean mark(int cell) {
+        if(marks[cell] == stamp) {
+            return false;
+        }
+        marks[cell] = stamp;
+        return true;
+    }
+
+    // squares of the four lines through the cell, at most a window apart
+    private int[] lineSquares(int cell) {
+        int[] line = new int[directions.length * 2 * (WIN_LENGTH - 1)];
+        int count = 0;
+        for(int direction : directions) {
+            for(int k = 1; k < WIN_LENGTH; k++) {
+                line[count++] = cell + k * direction;
+                line[count++] = cell - k * direction;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * @return most own stones of an open window through the empty cell, -1 if none
+     */
+    private int mostInWindow(int cell, int color) {
+        int most = -1;
+        for(int direction : directions) {
+            // slide over the nine squares of the line, counting own and blocking squares
+            int own = 0;
+            int blocking = 0;
+            int last = cell - WIN_LENGTH * direction;
+            for(int i = 1 - WIN_LENGTH; i < WIN_LENGTH; i++) {
+                int c = cells[cell + i * direction];
+                own += c == color ? 1 : 0;
+                blocking += c != color && c != EMPTY ? 1 : 0;
+                if(i > 0) {
+                    int out = cells[last += direction];
+                    own -= out == color ? 1 : 0;
+                    blocking -= out != color && out != EMPTY ? 1 : 0;
+                }
+                if(i >= 0 && blocking == 0 && own > most) {
+                    most = own;
+                }
+            }
+        }
+        return most;
+    }
+
+    /**
+     * Collects the squares completing a five of color together with the stone on cell,
+     * the open windows through cell holding four stones and one empty square.
+     *
+     * @return number of squares left in the five buffer
+     */
+    private int collectFives(int color, int cell) {
+        int count = 0;
+        for(int direction : directions) {
+            for(int first = cell - (WIN_LENGTH - 1) * direction; first <= cell; first += direction) {
+                int own = 0;
+                int empty = -1;
+                for(int i = 0, c = first; i < WIN_LENGTH; i++, c += direction) {
+                    if(cells[c] == color) {
+                        own++;
+                    } else if(cells[c] == EMPTY) {
+                        empty = c;
+                    }
+                }
+                if(own == WIN_LENGTH - 1 && empty >= 0) {
+                    count = addNew(fiveBuffer, count, empty);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int[] fivesAround(int color, int cell) {
+        return Arrays.copyOf(fiveBuffer, collectFives(color, cell));
+    }
+
+    /**
+     * @return every empty square completing a five of color
+     */
+    private int[] allFives(int color) {
+        int count = 0;
+        for(int cell : squares) {
+            if(cells[cell] == EMPTY && isFive(cell, color)) {
+                buffer[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    // would a stone of color on the empty cell make a row of five or more
+    private boolean isFive(int cell, int color) {
+        for(int direction : directions) {
+            int length = 1;
+            for(int c = cell + direction; cells[c] == color; c += direction) {
+                length++;
+            }
+            for(int c = cell - direction; cells[c] == color; c -= direction) {
+                length++;
+            }
+            if(length >= WIN_LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // winning line from the proofs, the rival picks the longest resistance
+    private void readLine(List<Point> line) {
+        List<int[]> played = new ArrayList<>();
+        Long proof;
+        while((proof = proofs.get(hash)) != null) {
+            int move = (int) (long) proof;
+            place(move, attacker);
+            played.add(new int[] {move, attacker});
+            line.add(point(move));
+
+            int[] fives = fivesAround(attacker, move);
+            if(fives.length > 1) {
+                // the rival blocks one five, the other is played
+                line.add(point(fives[0]));
+                line.add(point(fives[1]));
+                break;
+            }
+            int reply = -1;
+            int longest = -1;
+            for(int candidate : fives.length == 1 ? fives : threeDefences(-1)) {
+                place(candidate, defender);
+                Long next = proofs.get(hash);
+                remove(candidate, defender);
+                int length = next == null ? 0 : (int) (next >>> 32);
+                if(length > longest) {
+                    longest = length;
+                    reply = candidate;
+                }
+            }
+            place(reply, defender);
+            played.add(new int[] {reply, defender});
+            line.add(point(reply));
+        }
+        for(int i = played.size() - 1; i >= 0; i--) {
+            remove(played.get(i)[0], played.get(i)[1]);
+        }
+    }
+
+    private boolean tick() {
+        nodes++;
+        if((nodes & CHECK_INTERVAL) == 0 && System.nanoTime() >= deadline) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private void place(int cell, int color) {
+        cells[cell] = color;
+        hash ^= keys[color][cell];
+    }
+
+    private void remove(int cell, int color) {
+        cells[cell] = EMPTY;
+        hash ^= keys[color][cell];
+    }
+
+    private int cell(int x, int y) {
+        return (y + PADDING - 1) * stride + x + PADDING - 1;
+    }
+
+    private Point point(int cell) {
+        return new Point(cell % stride - PADDING + 1, cell / stride - PADDING + 1);
+    }
+
+    // appends value unless the first size entries hold it, returns the new size
+    private static int addNew(int[] list, int size, int value) {
+        for(int i = 0; i < size; i++) {
+            if(list[i] == value) {
+                return size;
+            }
+        }
+        list[size] = value;
+        return size + 1;
+    }
+}
@@ -0,0 +1,50 @@
+package model.rules.gameRule;
+
+import model.Board;
+
+/**
+ * Settings of a k-in-a-row game played by {@link GameRuleImplKInARow}.
+ *
+ * @param name rule name, as typed to create a board
+ * @param winLength stones in a row that win, 0 for the shorter side of the board
+ * @param exactLength true if a row longer than the win length does not win
+ * @param stonesPerTurn stones placed per turn, the first turn of black always places one
+ * @param captureWin captured pairs that win, 0 for a game without captures
+ * @param minBoardSize smallest height or width
+ * @param maxBoardSize largest height or width
+ */
+public record KInARowConfig(String name, int winLength, boolean exactLength, int stonesPerTurn,
+                            int captureWin, int minBoardSize, int maxBoardSize) {
+
+    /** five or more in a row */
+    public static final KInARowConfig GOMOKU =
+            new KInARowConfig("gomoku", 5, false, 1, 0, Board.MIN_BOARD_SIZE, Board.MAX_BOARD_SIZE);
+    /** exactly five in a row, six or more do not count */
+    public static final KInARowConfig GOMOKU_EXACT =
+            new KInARowConfig("gomoku-exact", 5, true, 1, 0, Board.MIN_BOARD_SIZE, Board.MAX_BOARD_SIZE);
+    /** six in a row, two stones a turn after a single opening stone */
+    public static final KInARowConfig CONNECT6 =
+            new KInARowConfig("connect6", 6, false, 2, 0, Board.MIN_BOARD_SIZE, Board.MAX_BOARD_SIZE);
+    /** five in a row, or five pairs taken by flanking them */
+    public static final KInARowConfig PENTE =
+            new KInARowConfig("pente", 5, false, 1, 5, Board.MIN_BOARD_SIZE, Board.MAX_BOARD_SIZE);
+    /** a full side of an n x n board in a row, up to the longest row the evaluation scores */
+    public static final KInARowConfig TIC_TAC_TOE =
+            new KInARowConfig("tictactoe", 0, false, 1, 0, 3, GomokuLineEvaluator.MAX_WIN_LENGTH);
+
+    public KInARowConfig {
+        if(winLength < 0 || winLength == 1 || winLength > GomokuLineEvaluator.MAX_WIN_LENGTH) {
+            throw new IllegalArgumentException("Invalid win length: " + winLength);
+        }
+        if(stonesPerTurn < 1 || captureWin < 0 || minBoardSize < 1 || maxBoardSize < minBoardSize) {
+            throw new IllegalArgumentException("Invalid k-in-a-row settings: " + name);
+        }
+    }
+
+    /**
+     * @return stones in a row that win on a board of the given size
+     */
+    public int winLength(int height, int width) {
+        return winLength > 0 ? winLength : Math.min(height, width);
+    }
+}
@@ -0,0 +1,168 @@
+package model.rules.gameRule;
+
+import model.enums.Player;
+import model.structs.BitBoard;
+
+/**
+ * Stones of a k-in-a-row board as bit masks, with the row check of every k-in-a-row rule.
+ *
+ * <p>Each player owns a mask in the {@link BitBoard} layout of the board, blocked squares
+ * (craters, barriers) a third one. A row of k is found by shift-and: a mask holding the
+ * starts of runs of j stones, shifted back one step along a line and and-ed with the stones,
+ * holds the starts of runs of j + 1. k - 1 steps per line direction check the whole board,
+ * a word at a time. With an exact length an overline does not count: the start of a run of
+ * k must not also start a run of k + 1, nor follow a stone of the same player.
+ *
+ * <p>An instance belongs to one game, the scratch masks make it unfit for sharing between threads.
+ */
+public final class KInARowKernel {
+
+    /** the BitBoard directions (1,0), (0,1), (1,1) and (1,-1), one per line */
+    private static final int[] LINE_DIRECTIONS = {1, 3, 0, 2};
+
+    private final BitBoard bitBoard;
+    private final int winLength;
+    private final boolean exactLength;
+
+    private final long[] black;
+    private final long[] white;
+    private final long[] blocked;
+    private int blackCount;
+    private int whiteCount;
+
+    private final long[] runs;
+    private final long[] scratch;
+
+    /**
+     * @param winLength stones in a row that win
+     * @param exactLength true if a row longer than the win length does not win
+     */
+    public KInARowKernel(BitBoard bitBoard, int winLength, boolean exactLength) {
+        if(winLength < 2) {
+            throw new IllegalArgumentException("Invalid win length: " + winLength);
+        }
+        this.bitBoard = bitBoard;
+        this.winLength = winLength;
+        this.exactLength = exactLength;
+        this.black = bitBoard.newMask();
+        this.white = bitBoard.newMask();
+        this.blocked = bitBoard.newMask();
+        this.runs = bitBoard.newMask();
+        this.scratch = bitBoard.newMask();
+    }
+
+    public KInARowKernel(KInARowKernel source) {
+        this.bitBoard = source.bitBoard;
+        this.winLength = source.winLength;
+        this.exactLength = source.exactLength;
+        this.black = source.black.clone();
+        this.white = source.white.clone();
+        this.blocked = source.blocked.clone();
+        this.blackCount = source.blackCount;
+        this.whiteCount = source.whiteCount;
+        this.runs = bitBoard.newMask();
+        this.scratch = bitBoard.newMask();
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * @return stones of the player, read only
+     */
+    public long[] getStones(Player player) {
+        return player == Player.WHITE ? white : black;
+    }
+
+    public int getStoneCount(Player player) {
+        return player == Player.WHITE ? whiteCount : blackCount;
+    }
+
+    public boolean hasStone(int square, Player player) {
+        return BitBoard.get(getStones(player), square);
+    }
+
+    public boolean isEmpty(int square) {
+        return !BitBoard.get(black, square) && !BitBoard.get(white, square) && !BitBoard.get(blocked, square);
+    }
+
+    public void place(int square, Player player) {
+        if(player == Player.WHITE) {
+            BitBoard.set(white, square);
+            whiteCount++;
+        } else {
+            BitBoard.set(black, square);
+            blackCount++;
+        }
+    }
+
+    public void remove(int square, Player player) {
+        if(player == Player.WHITE) {
+            BitBoard.clear(white, square);
+            whiteCount--;
+        } else {
+            BitBoard.clear(black, square);
+            blackCount--;
+        }
+    }
+
+    /**
+     * Marks a square that never takes a stone, e.g. a crater or a barrier.
+     */
+    public void block(int square) {
+        BitBoard.set(blocked, square);
+    }
+
+    public void unblock(int square) {
+        BitBoard.clear(blocked, square);
+    }
+
+    /**
+     * Tells whether the player has a winning row anywhere on the board.
+     */
+    public boolean hasRun(Player player) {
+        long[] stones = getStones(player);
+        if(getStoneCount(player) < winLength) {
+            return false;
+        }
+        for(int direction : LINE_DIRECTIONS) {
+            int back = BitBoard.DIRECTION_COUNT - 1 - direction;
+            System.arraycopy(stones, 0, runs, 0, runs.length);
+            boolean found = true;
+            for(int length = 1; length < winLength && found; length++) {
+                found = extend(stones, back);
+            }
+            if(!found) {
+                continue;
+            }
+            if(!exactLength) {
+                return true;
+            }
+            // drop runs going on past the win length, then runs that do not start a row
+            System.arraycopy(runs, 0, scratch, 0, runs.length);
+            extend(stones, back);
+            for(int i = 0; i < runs.length; i++) {
+                runs[i] = scratch[i] & ~runs[i];
+            }
+            bitBoard.shift(stones, direction, scratch);
+            for(int i = 0; i < runs.length; i++) {
+                if((runs[i] & ~scratch[i]) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // one more stone on every run, false if none is left
+    private boolean extend(long[] stones, int back) {
+        bitBoard.shift(runs, back, runs);
+        long any = 0;
+        for(int i = 0; i < runs.length; i++) {
+            runs[i] &= stones[i];
+            any |= runs[i];
+        }
+        return any != 0;
+    }
+}
@@ -0,0 +1,425 @@
+package model.rules.gameRule;
+
+import model.structs.BitBoard;
+
+import java.util.Arrays;
+
+/**
+ * Perfect play solver for reversi endgames.
+ *
+ * <p>Negamax alpha-beta (principal variation search) to the end of the game on the disc
+ * masks of {@link ReversiMoveGenerator}. Moves are ordered fastest-first (least rival
+ * mobility) with region parity as tie-break, near the end only parity is used since
+ * mobility costs more than it saves. Boards up to 64 squares run on single words and
+ * keep bounds of positions with many empties in a small transposition table.
+ *
+ * <p>Scores are final disc differentials from the view of the player to move,
+ * the same count {@link GameRuleImplReversi} uses to pick the winner.
+ *
+ * <p>An instance keeps per ply buffers, so it must not be shared between threads.
+ */
+public final class ReversiEndgameSolver {
+
+    /** default number of empty squares the solver accepts, a few seconds on 8x8 */
+    public static final int DEFAULT_EMPTIES_THRESHOLD = 18;
+
+    /** below this many empties moves are ordered by parity only */
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+
+    /** from this many empties bounds are kept in the transposition table */
+    private static final int TABLE_EMPTIES = 9;
+    private static final int TABLE_BITS = 20;
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    /**
+     * Result of a solve.
+     *
+     * @param square best move in the {@link BitBoard} layout, -1 for a pass or a finished game
+     * @param discDifferential final own discs minus rival discs under perfect play
+     * @param nodes positions searched
+     */
+    public record Solution(int square, int discDifferential, long nodes) {}
+
+    private final BitBoard bitBoard;
+    private final ReversiMoveGenerator generator;
+    private final int emptiesThreshold;
+    /** parity regions, the four quadrants of the board */
+    private final long[][] regions;
+    private final int[] regionIndex;
+
+    // per ply buffers, a ply is a move or a pass
+    private final int maxPly;
+    private final int[][] moveOrder;
+    private final int[][] moveKeys;
+    private final long[][] ownBuffer;
+    private final long[][] rivalBuffer;
+    private final long[][] moveBuffer;
+    private final long[][] flipBuffer;
+
+    // transposition table of the single word path, replaced on every store
+    private long[] tableOwn;
+    private long[] tableRival;
+    private byte[] tableLower;
+    private byte[] tableUpper;
+    private byte[] tableMove;
+
+    private long nodes;
+
+    public ReversiEndgameSolver(BitBoard bitBoard, int emptiesThreshold) {
+        this.bitBoard = bitBoard;
+        this.generator = new ReversiMoveGenerator(bitBoard);
+        this.emptiesThreshold = emptiesThreshold;
+
+        this.regions = new long[4][bitBoard.words];
+        this.regionIndex = new int[bitBoard.size];
+        int halfHeight = (bitBoard.height + 1) / 2;
+        int halfWidth = (bitBoard.width + 1) / 2;
+        for(int y = 1; y <= bitBoard.height; y++) {
+            for(int x = 1; x <= bitBoard.width; x++) {
+                int region = (y <= halfHeight ? 0 : 2) + (x <= halfWidth ? 0 : 1);
+                BitBoard.set(regions[region], bitBoard.index(x, y));
+                regionIndex[bitBoard.index(x, y)] = region;
+            }
+        }
+
+        this.maxPly = 2 * bitBoard.size + 2;
+        this.moveOrder = new int[maxPly][];
+        this.moveKeys = new int[maxPly][];
+        this.ownBuffer = new long[maxPly][bitBoard.words];
+        this.rivalBuffer = new long[maxPly][bitBoard.words];
+        this.moveBuffer = new long[maxPly][bitBoard.words];
+        this.flipBuffer = new long[maxPly][bitBoard.words];
+        for(int i = 0; i < maxPly; i++) {
+            moveOrder[i] = new int[bitBoard.size];
+            moveKeys[i] = new int[bitBoard.size];
+        }
+    }
+
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    public int getEmptiesThreshold() {
+        return emptiesThreshold;
+    }
+
+    public int countEmpties(long[] own, long[] rival) {
+        return bitBoard.size - BitBoard.bitCount(own) - BitBoard.bitCount(rival);
+    }
+
+    /**
+     * @return true if the position is within the empties threshold
+     */
+    public boolean canSolve(long[] own, long[] rival) {
+        return countEmpties(own, rival) <= emptiesThreshold;
+    }
+
+    /**
+     * Solves the position for the player owning own.
+     *
+     * @throws IllegalArgumentException if the position has more empties than the threshold
+     */
+    public Solution solve(long[] own, long[] rival) {
+        if(!canSolve(own, rival)) {
+            throw new IllegalArgumentException("Too many empty squares to solve: "
+                    + countEmpties(own, rival) + " > " + emptiesThreshold);
+        }
+        nodes = 0;
+        if(bitBoard.words == 1) {
+            clearTable();
+        }
+        return bitBoard.words == 1 ? solveRootWord(own[0], rival[0]) : solveRoot(own, rival);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // single word path
+
+    private Solution solveRootWord(long own, long rival) {
+        int empties = bitBoard.size - Long.bitCount(own) - Long.bitCount(rival);
+        long moves = generator.legalMoves(own, rival);
+        nodes++;
+        if(moves == 0) {
+            return new Solution(-1, solveWord(own, rival, -INFINITY, INFINITY, false, empties, 0), nodes);
+        }
+        int count = orderWord(own, rival, moves, empties, 0, -1);
+        int bestSquare = -1;
+        int alpha = -INFINITY;
+        for(int i = 0; i < count; i++) {
+            int square = moveOrder[0][i];
+            long flipped = generator.flips(own, rival, square);
+            long nextOwn = rival & ~flipped;
+            long nextRival = own | flipped | (1L << square);
+            int score;
+            if(i == 0) {
+                score = -solveWord(nextOwn, nextRival, -INFINITY, -alpha, false, empties - 1, 1);
+            } else {
+                score = -solveWord(nextOwn, nextRival, -alpha - 1, -alpha, false, empties - 1, 1);
+                if(score > alpha) {
+                    score = -solveWord(nextOwn, nextRival, -INFINITY, -score, false, empties - 1, 1);
+                }
+            }
+            if(score > alpha) {
+                alpha = score;
+                bestSquare = square;
+            }
+        }
+        return new Solution(bestSquare, alpha, nodes);
+    }
+
+    private int solveWord(long own, long rival, int alpha, int beta, boolean passed, int empties, int ply) {
+        nodes++;
+        if(empties == 0) {
+            return Long.bitCount(own) - Long.bitCount(rival);
+        }
+        long moves = generator.legalMoves(own, rival);
+        if(moves == 0) {
+            if(passed) {
+                return Long.bitCount(own) - Long.bitCount(rival);
+            }
+            return -solveWord(rival, own, -beta, -alpha, true, empties, ply + 1);
+        }
+        if(empties == 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flipped = generator.flips(own, rival, square);
+            nodes++;
+            return Long.bitCount(own | flipped) + 1 - Long.bitCount(rival & ~flipped);
+        }
+
+        int slot = -1;
+        int tableSquare = -1;
+        int alphaBefore = alpha;
+        if(empties >= TABLE_EMPTIES) {
+            slot = slot(own, rival);
+            if(tableOwn[slot] == own && tableRival[slot] == rival) {
+                int lower = tableLower[slot];
+                int upper = tableUpper[slot];
+                if(lower >= beta || lower == upper) {
+                    return lower;
+                }
+                if(upper <= alpha) {
+                    return upper;
+                }
+                alpha = Math.max(alpha, lower);
+                beta = Math.min(beta, upper);
+                alphaBefore = alpha;
+                tableSquare = tableMove[slot];
+            }
+        }
+
+        int count = orderWord(own, rival, moves, empties, ply, tableSquare);
+        int[] order = moveOrder[ply];
+        int best = -INFINITY;
+        int bestSquare = -1;
+        for(int i = 0; i < count; i++) {
+            int square = order[i];
+            long flipped = generator.flips(own, rival, square);
+            long nextOwn = rival & ~flipped;
+            long nextRival = own | flipped | (1L << square);
+            int bound = Math.max(alpha, best);
+            int score;
+            if(i == 0) {
+                score = -solveWord(nextOwn, nextRival, -beta, -bound, false, empties - 1, ply + 1);
+            } else {
+                // null window first, re-search if the move turns out better
+                score = -solveWord(nextOwn, nextRival, -bound - 1, -bound, false, empties - 1, ply + 1);
+                if(score > bound && score < beta) {
+                    score = -solveWord(nextOwn, nextRival, -beta, -score, false, empties - 1, ply + 1);
+                }
+            }
+            if(score > best) {
+                best = score;
+                bestSquare = square;
+                if(best >= beta) {
+                    break;
+                }
+            }
+        }
+
+        if(slot >= 0) {
+            store(slot, own, rival, best, alphaBefore, beta, bestSquare);
+        }
+        return best;
+    }
+
+    private int slot(long own, long rival) {
+        long key = (own * 0x9E3779B97F4A7C15L) ^ (rival * 0xC2B2AE3D27D4EB4FL);
+        return (int) (key >>> (64 - TABLE_BITS));
+    }
+
+    private void store(int slot, long own, long rival, int score, int alpha, int beta, int square) {
+        if(tableOwn[slot] != own || tableRival[slot] != rival) {
+            tableOwn[slot] = own;
+            tableRival[slot] = rival;
+            tableLower[slot] = (byte) -bitBoard.size;
+            tableUpper[slot] = (byte) bitBoard.size;
+        }
+        if(score <= alpha) {
+            tableUpper[slot] = (byte) score;
+        } else if(score >= beta) {
+            tableLower[slot] = (byte) score;
+        } else {
+            tableLower[slot] = (byte) score;
+            tableUpper[slot] = (byte) score;
+        }
+        tableMove[slot] = (byte) square;
+    }
+
+    private void clearTable() {
+        if(tableOwn == null) {
+            tableOwn = new long[1 << TABLE_BITS];
+            tableRival = new long[1 << TABLE_BITS];
+            tableLower = new byte[1 << TABLE_BITS];
+            tableUpper = new byte[1 << TABLE_BITS];
+            tableMove = new byte[1 << TABLE_BITS];
+        } else {
+            // own and rival never are both empty in a real position
+            Arrays.fill(tableOwn, 0);
+            Arrays.fill(tableRival, 0);
+        }
+    }
+
+    /**
+     * Fills moveOrder[ply] with the moves, best first.
+     *
+     * @param first move to try first, e.g. from the table, -1 if none
+     * @return number of moves
+     */
+    private int orderWord(long own, long rival, long moves, int empties, int ply, int first) {
+        int[] order = moveOrder[ply];
+        int[] keys = moveKeys[ply];
+        long empty = bitBoard.full()[0] & ~(own | rival);
+        int count = 0;
+        for(long m = moves; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            int key = (Long.bitCount(empty & regionOf(square)[0]) & 1) == 0 ? 1 : 0;
+            if(empties >= FASTEST_FIRST_EMPTIES) {
+                long flipped = generator.flips(own, rival, square);
+                long rivalMoves = generator.legalMoves(rival & ~flipped, own | flipped | (1L << square));
+                key += Long.bitCount(rivalMoves) << 1;
+            }
+            if(square == first) {
+                key = -1;
+            }
+            insert(order, keys, count++, square, key);
+        }
+        return count;
+    }
+
+    // multi word path, working on the per ply buffers
+
+    private Solution solveRoot(long[] own, long[] rival) {
+        int empties = countEmpties(own, rival);
+        System.arraycopy(own, 0, ownBuffer[0], 0, own.length);
+        System.arraycopy(rival, 0, rivalBuffer[0], 0, rival.length);
+        nodes++;
+        if(!generator.legalMoves(own, rival, moveBuffer[0])) {
+            return new Solution(-1, solve(-INFINITY, INFINITY, false, empties, 0), nodes);
+        }
+        int count = order(empties, 0);
+        int bestSquare = -1;
+        int alpha = -INFINITY;
+        for(int i = 0; i < count; i++) {
+            int square = moveOrder[0][i];
+            play(square, 0);
+            int score = -solve(-INFINITY, -alpha, false, empties - 1, 1);
+            if(score > alpha) {
+                alpha = score;
+                bestSquare = square;
+            }
+        }
+        return new Solution(bestSquare, alpha, nodes);
+    }
+
+    // solves ownBuffer[ply] against rivalBuffer[ply]
+    private int solve(int alpha, int beta, boolean passed, int empties, int ply) {
+        nodes++;
+        long[] own = ownBuffer[ply];
+        long[] rival = rivalBuffer[ply];
+        if(empties == 0) {
+            return BitBoard.bitCount(own) - BitBoard.bitCount(rival);
+        }
+        if(!generator.legalMoves(own, rival, moveBuffer[ply])) {
+            if(passed) {
+                return BitBoard.bitCount(own) - BitBoard.bitCount(rival);
+            }
+            System.arraycopy(rival, 0, ownBuffer[ply + 1], 0, own.length);
+            System.arraycopy(own, 0, rivalBuffer[ply + 1], 0, own.length);
+            return -solve(-beta, -alpha, true, empties, ply + 1);
+        }
+
+        int count = order(empties, ply);
+        int[] order = moveOrder[ply];
+        int best = -INFINITY;
+        for(int i = 0; i < count; i++) {
+            play(order[i], ply);
+            int score = -solve(-beta, -Math.max(alpha, best), false, empties - 1, ply + 1);
+            if(score > best) {
+                best = score;
+                if(best >= beta) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    // writes the position after square is played at ply into ply + 1, rival to move
+    private void play(int square, int ply) {
+        long[] own = ownBuffer[ply];
+        long[] rival = rivalBuffer[ply];
+        long[] flipped = flipBuffer[ply];
+        long[] nextOwn = ownBuffer[ply + 1];
+        long[] nextRival = rivalBuffer[ply + 1];
+        generator.flips(own, rival, square, flipped);
+        for(int w = 0; w < own.length; w++) {
+            nextOwn[w] = rival[w] & ~flipped[w];
+            nextRival[w] = own[w] | flipped[w];
+        }
+        BitBoard.set(nextRival, square);
+    }
+
+    private int order(int empties, int ply) {
+        int[] order = moveOrder[ply];
+        int[] keys = moveKeys[ply];
+        long[] moves = moveBuffer[ply];
+        long[] own = ownBuffer[ply];
+        long[] rival = rivalBuffer[ply];
+        int count = 0;
+        for(int square = BitBoard.nextSetBit(moves, 0); square >= 0; square = BitBoard.nextSetBit(moves, square + 1)) {
+            long[] region = regionOf(square);
+            int regionEmpties = 0;
+            for(int w = 0; w < own.length; w++) {
+                regionEmpties += Long.bitCount(region[w] & ~(own[w] | rival[w]));
+            }
+            int key = (regionEmpties & 1) == 0 ? 1 : 0;
+            if(empties >= FASTEST_FIRST_EMPTIES) {
+                // the next ply buffers are free until the move is played
+                play(square, ply);
+                generator.legalMoves(ownBuffer[ply + 1], rivalBuffer[ply + 1], moveBuffer[ply + 1]);
+                key += BitBoard.bitCount(moveBuffer[ply + 1]) << 1;
+            }
+            insert(order, keys, count++, square, key);
+        }
+        return count;
+    }
+
+    private long[] regionOf(int square) {
+        return regions[regionIndex[square]];
+    }
+
+    // insertion sort step, keeps keys ascending
+    private static void insert(int[] order, int[] keys, int count, int square, int key) {
+        int i = count;
+        while(i > 0 && keys[i - 1] > key) {
+            order[i] = order[i - 1];
+            keys[i] = keys[i - 1];
+            i--;
+        }
+        order[i] = square;
+        keys[i] = key;
+    }
+}
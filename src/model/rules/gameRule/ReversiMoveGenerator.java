@@ -0,0 +1,214 @@
+package model.rules.gameRule;
+
+import model.structs.BitBoard;
+
+/**
+ * Bitboard move generator for reversi.
+ *
+ * <p>Discs are kept as one mask per player in the {@link BitBoard} layout.
+ * Boards up to 64 squares (8x8 included) take the single word path,
+ * bigger ones run the same shift-and-mask fill over multi-word masks.
+ *
+ * <p>An instance keeps scratch buffers, so it must not be shared between threads.
+ */
+public final class ReversiMoveGenerator {
+
+    private final BitBoard bitBoard;
+    /** a run of rival discs is at most this long */
+    private final int maxRun;
+
+    private final long[] run;
+    private final long[] step;
+    private final long[] empty;
+
+    // single word path: the 8 directions as 4 opposite pairs sharing a shift amount,
+    // with the squares a step left (<<) or right (>>>) can land on
+    private final int[] pairShift;
+    private final long[] leftLanding;
+    private final long[] rightLanding;
+
+    public ReversiMoveGenerator(BitBoard bitBoard) {
+        this.bitBoard = bitBoard;
+        this.maxRun = Math.max(bitBoard.height, bitBoard.width) - 2;
+        this.run = bitBoard.newMask();
+        this.step = bitBoard.newMask();
+        this.empty = bitBoard.newMask();
+
+        this.pairShift = new int[BitBoard.DIRECTION_COUNT / 2];
+        this.leftLanding = new long[BitBoard.DIRECTION_COUNT / 2];
+        this.rightLanding = new long[BitBoard.DIRECTION_COUNT / 2];
+        if(bitBoard.words == 1) {
+            int pair = 0;
+            for(int d = 0; d < BitBoard.DIRECTION_COUNT; d++) {
+                // DX and DY list opposite directions at d and 7 - d
+                if(bitBoard.delta(d) > 0) {
+                    pairShift[pair] = bitBoard.delta(d);
+                    leftLanding[pair] = bitBoard.shift(bitBoard.full()[0], d);
+                    rightLanding[pair] = bitBoard.shift(bitBoard.full()[0], BitBoard.DIRECTION_COUNT - 1 - d);
+                    pair++;
+                }
+            }
+        }
+    }
+
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    /**
+     * Single word legal move mask, only valid when the board fits in one word.
+     */
+    public long legalMoves(long own, long rival) {
+        long moves = 0;
+        for(int pair = 0; pair < pairShift.length; pair++) {
+            int n = pairShift[pair];
+            long leftRival = rival & leftLanding[pair];
+            long rightRival = rival & rightLanding[pair];
+            long left = (own << n) & leftRival;
+            long right = (own >>> n) & rightRival;
+            for(int i = 1; i < maxRun; i++) {
+                left |= (left << n) & leftRival;
+                right |= (right >>> n) & rightRival;
+            }
+            moves |= ((left << n) & leftLanding[pair]) | ((right >>> n) & rightLanding[pair]);
+        }
+        return moves & bitBoard.full()[0] & ~(own | rival);
+    }
+
+    /**
+     * Single word flip mask, only valid when the board fits in one word.
+     *
+     * @return discs flipped by a move at square, 0 if the move flips nothing
+     */
+    public long flips(long own, long rival, int square) {
+        long start = 1L << square;
+        long flipped = 0;
+        for(int pair = 0; pair < pairShift.length; pair++) {
+            int n = pairShift[pair];
+            long leftRival = rival & leftLanding[pair];
+            long left = (start << n) & leftRival;
+            if(left != 0) {
+                for(int i = 1; i < maxRun; i++) {
+                    left |= (left << n) & leftRival;
+                }
+                if(((left << n) & own & leftLanding[pair]) != 0) {
+                    flipped |= left;
+                }
+            }
+            long rightRival = rival & rightLanding[pair];
+            long right = (start >>> n) & rightRival;
+            if(right != 0) {
+                for(int i = 1; i < maxRun; i++) {
+                    right |= (right >>> n) & rightRival;
+                }
+                if(((right >>> n) & own & rightLanding[pair]) != 0) {
+                    flipped |= right;
+                }
+            }
+        }
+        return flipped;
+    }
+
+    /**
+     * Writes the legal move mask of the player owning own into moves.
+     *
+     * @return true if there is at least one legal move
+     */
+    public boolean legalMoves(long[] own, long[] rival, long[] moves) {
+        if(bitBoard.words == 1) {
+            moves[0] = legalMoves(own[0], rival[0]);
+            return moves[0] != 0;
+        }
+        long[] full = bitBoard.full();
+        for(int w = 0; w < bitBoard.words; w++) {
+            empty[w] = full[w] & ~(own[w] | rival[w]);
+            moves[w] = 0;
+        }
+        for(int d = 0; d < BitBoard.DIRECTION_COUNT; d++) {
+            bitBoard.shift(own, d, run);
+            if(!and(run, rival)) {
+                continue;
+            }
+            for(int i = 1; i < maxRun; i++) {
+                bitBoard.shift(run, d, step);
+                if(!and(step, rival)) {
+                    break;
+                }
+                or(run, step);
+            }
+            bitBoard.shift(run, d, step);
+            for(int w = 0; w < bitBoard.words; w++) {
+                moves[w] |= step[w] & empty[w];
+            }
+        }
+        return !BitBoard.isEmpty(moves);
+    }
+
+    /**
+     * Writes the discs flipped by a move at square into flipped.
+     *
+     * @return the number of flipped discs
+     */
+    public int flips(long[] own, long[] rival, int square, long[] flipped) {
+        if(bitBoard.words == 1) {
+            flipped[0] = flips(own[0], rival[0], square);
+            return Long.bitCount(flipped[0]);
+        }
+        BitBoard.clear(flipped);
+        for(int d = 0; d < BitBoard.DIRECTION_COUNT; d++) {
+            BitBoard.clear(run);
+            BitBoard.set(run, square);
+            bitBoard.shift(run, d, run);
+            if(!and(run, rival)) {
+                continue;
+            }
+            for(int i = 1; i < maxRun; i++) {
+                bitBoard.shift(run, d, step);
+                if(!and(step, rival) || !andNotAny(step, run)) {
+                    break;
+                }
+                or(run, step);
+            }
+            bitBoard.shift(run, d, step);
+            if(intersects(step, own)) {
+                or(flipped, run);
+            }
+        }
+        return BitBoard.bitCount(flipped);
+    }
+
+    // dst &= src, returns whether anything is left
+    private boolean and(long[] dst, long[] src) {
+        long any = 0;
+        for(int w = 0; w < dst.length; w++) {
+            dst[w] &= src[w];
+            any |= dst[w];
+        }
+        return any != 0;
+    }
+
+    private static void or(long[] dst, long[] src) {
+        for(int w = 0; w < dst.length; w++) {
+            dst[w] |= src[w];
+        }
+    }
+
+    // whether a has bits outside b
+    private static boolean andNotAny(long[] a, long[] b) {
+        for(int w = 0; w < a.length; w++) {
+            if((a[w] & ~b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for(int w = 0; w < a.length; w++) {
+            if((a[w] & b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,324 @@
+package model.rules.gameRule;
+
+import model.enums.Player;
+import model.structs.BitBoard;
+import model.structs.Zobrist;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reversi opening book, memory-mapped read only so it never touches the heap and
+ * every JVM opening the same file shares the page cache.
+ *
+ * <p>The file is a 16 byte header (magic, version, board height and width, entry count)
+ * and fixed size entries sorted by position key, found by binary search:
+ * <pre>
+ *   long  key      canonical position key
+ *   short move     book move in the canonical frame, -1 for a pass
+ *   short winRate  per mille of the games won by the player to move, draws count half
+ *   int   games    games that played the move
+ * </pre>
+ * A position and its mirror images share one key: the key is the smallest
+ * Zobrist hash of the side-to-move relative disc masks over the board symmetries,
+ * and book moves are stored in the frame of that smallest image.
+ */
+public final class ReversiOpeningBook {
+
+    private static final int MAGIC = 0x5256424B; // "RVBK"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 16;
+    /** entries per mapped chunk, a mapping is limited to 2 GB */
+    private static final int CHUNK_ENTRIES = 1 << 26;
+
+    /** system property naming the book file of the computer player */
+    public static final String BOOK_PROPERTY = "reversi.book";
+    private static final String DEFAULT_BOOK_FILE = "reversi.book";
+
+    private static ReversiOpeningBook defaultBook;
+    private static boolean defaultBookOpened;
+
+    /**
+     * A book move of a position.
+     *
+     * @param square move in the {@link BitBoard} layout of the board, -1 for a pass
+     * @param games games that played the move
+     * @param winRate per mille of those games won by the player to move
+     */
+    public record BookMove(int square, int games, int winRate) {}
+
+    /**
+     * One line of a book file, in the canonical frame.
+     */
+    public record Entry(long key, int move, int games, int winRate) {}
+
+    private final BitBoard bitBoard;
+    private final Symmetries symmetries;
+    private final long entryCount;
+    private final MappedByteBuffer[] chunks;
+
+    private ReversiOpeningBook(BitBoard bitBoard, long entryCount, MappedByteBuffer[] chunks) {
+        this.bitBoard = bitBoard;
+        this.symmetries = Symmetries.of(bitBoard);
+        this.entryCount = entryCount;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Maps a book file, nothing but the header is read.
+     *
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static ReversiOpeningBook open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while(header.hasRemaining() && channel.read(header) >= 0) {}
+            header.flip();
+            if(header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getShort() != VERSION) {
+                throw new IOException("Not a reversi opening book: " + path);
+            }
+            int height = header.get();
+            int width = header.get();
+            long entryCount = header.getLong();
+            if(channel.size() != HEADER_BYTES + entryCount * ENTRY_BYTES) {
+                throw new IOException("Truncated reversi opening book: " + path);
+            }
+
+            // the mappings stay valid after the channel is closed
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((entryCount + CHUNK_ENTRIES - 1) / CHUNK_ENTRIES)];
+            for(int i = 0; i < chunks.length; i++) {
+                long first = (long) i * CHUNK_ENTRIES;
+                long count = Math.min(CHUNK_ENTRIES, entryCount - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * ENTRY_BYTES, count * ENTRY_BYTES);
+            }
+            return new ReversiOpeningBook(BitBoard.of(height, width), entryCount, chunks);
+        }
+    }
+
+    /**
+     * The book named by the {@value #BOOK_PROPERTY} system property, by default
+     * {@value #DEFAULT_BOOK_FILE} in the working directory. Opened once and shared.
+     *
+     * @return the book, null if there is none or it cannot be read
+     */
+    public static synchronized ReversiOpeningBook getDefault() {
+        if(!defaultBookOpened) {
+            defaultBookOpened = true;
+            Path path = Path.of(System.getProperty(BOOK_PROPERTY, DEFAULT_BOOK_FILE));
+            if(Files.isReadable(path)) {
+                try {
+                    defaultBook = open(path);
+                } catch (IOException e) {
+                    System.out.println("Opening book not loaded: " + e.getMessage());
+                }
+            }
+        }
+        return defaultBook;
+    }
+
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Looks up the book moves of the player owning own.
+     *
+     * @return book moves in the layout of the board, most played first, empty if the position is not in the book
+     */
+    public List<BookMove> lookup(long[] own, long[] rival) {
+        int symmetry = symmetries.canonical(own, rival);
+        long key = symmetries.key(own, rival, symmetry);
+        List<BookMove> moves = new ArrayList<>();
+        for(long i = lowerBound(key); i < entryCount && keyAt(i) == key; i++) {
+            int move = moveAt(i);
+            moves.add(new BookMove(move < 0 ? -1 : symmetries.fromCanonical(move, symmetry), gamesAt(i), winRateAt(i)));
+        }
+        return moves;
+    }
+
+    /**
+     * Picks the move to play: the best win rate among the moves played at least
+     * half as often as the most played one.
+     *
+     * @return the chosen move, null if the position is not in the book
+     */
+    public BookMove choose(long[] own, long[] rival) {
+        List<BookMove> moves = lookup(own, rival);
+        if(moves.isEmpty()) {
+            return null;
+        }
+        int mostGames = moves.getFirst().games();
+        BookMove best = null;
+        for(BookMove move : moves) {
+            if(2 * move.games() >= mostGames && (best == null || move.winRate() > best.winRate())) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return canonical key of the position of the player owning own
+     */
+    public static long canonicalKey(BitBoard bitBoard, long[] own, long[] rival) {
+        Symmetries symmetries = Symmetries.of(bitBoard);
+        return symmetries.key(own, rival, symmetries.canonical(own, rival));
+    }
+
+    /**
+     * Turns a move of the player owning own into the canonical frame, for writing books.
+     *
+     * @param square move in the layout of the board, -1 for a pass
+     * @return the move as stored in the book
+     */
+    public static int canonicalMove(BitBoard bitBoard, long[] own, long[] rival, int square) {
+        if(square < 0) {
+            return -1;
+        }
+        Symmetries symmetries = Symmetries.of(bitBoard);
+        return symmetries.toCanonical(square, symmetries.canonical(own, rival));
+    }
+
+    /**
+     * Writes a book file, entries are sorted by key and most played move first.
+     */
+    public static void write(Path path, BitBoard bitBoard, List<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(Entry::key).thenComparing(Entry::games, Comparator.reverseOrder()));
+        try(OutputStream file = Files.newOutputStream(path);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(bitBoard.height);
+            out.writeByte(bitBoard.width);
+            out.writeLong(sorted.size());
+            for(Entry entry : sorted) {
+                out.writeLong(entry.key());
+                out.writeShort(entry.move());
+                out.writeShort(entry.winRate());
+                out.writeInt(entry.games());
+            }
+        }
+    }
+
+    // first entry with a key not below key
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = entryCount;
+        while(low < high) {
+            long middle = (low + high) >>> 1;
+            if(keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(long i) {
+        return chunks[(int) (i / CHUNK_ENTRIES)].getLong((int) (i % CHUNK_ENTRIES) * ENTRY_BYTES);
+    }
+
+    private int moveAt(long i) {
+        return chunks[(int) (i / CHUNK_ENTRIES)].getShort((int) (i % CHUNK_ENTRIES) * ENTRY_BYTES + 8);
+    }
+
+    private int winRateAt(long i) {
+        return chunks[(int) (i / CHUNK_ENTRIES)].getShort((int) (i % CHUNK_ENTRIES) * ENTRY_BYTES + 10);
+    }
+
+    private int gamesAt(long i) {
+        return chunks[(int) (i / CHUNK_ENTRIES)].getInt((int) (i % CHUNK_ENTRIES) * ENTRY_BYTES + 12);
+    }
+
+    /**
+     * The mirror images of a board: the 4 flips and turns of any board,
+     * 8 with the diagonal ones on square boards.
+     */
+    private static final class Symmetries {
+        private static final Map<BitBoard, Symmetries> CACHE = new ConcurrentHashMap<>();
+
+        /** square in the board layout to square in each image */
+        private final int[][] forward;
+        private final int[][] backward;
+        private final long sizeKey;
+
+        static Symmetries of(BitBoard bitBoard) {
+            return CACHE.computeIfAbsent(bitBoard, Symmetries::new);
+        }
+
+        private Symmetries(BitBoard bitBoard) {
+            int height = bitBoard.height;
+            int width = bitBoard.width;
+            int count = height == width ? 8 : 4;
+            this.forward = new int[count][bitBoard.size];
+            this.backward = new int[count][bitBoard.size];
+            for(int s = 0; s < count; s++) {
+                for(int y = 1; y <= height; y++) {
+                    for(int x = 1; x <= width; x++) {
+                        // s bit 0 mirrors x, bit 1 mirrors y, bit 2 swaps x and y
+                        int tx = (s & 1) == 0 ? x : width + 1 - x;
+                        int ty = (s & 2) == 0 ? y : height + 1 - y;
+                        int image = (s & 4) == 0 ? bitBoard.index(tx, ty) : bitBoard.index(ty, tx);
+                        forward[s][bitBoard.index(x, y)] = image;
+                        backward[s][image] = bitBoard.index(x, y);
+                    }
+                }
+            }
+            this.sizeKey = (height * 31L + width) * 0x9E3779B97F4A7C15L;
+        }
+
+        int canonical(long[] own, long[] rival) {
+            int best = 0;
+            long bestKey = key(own, rival, 0);
+            for(int s = 1; s < forward.length; s++) {
+                long key = key(own, rival, s);
+                if(key < bestKey) {
+                    best = s;
+                    bestKey = key;
+                }
+            }
+            return best;
+        }
+
+        long key(long[] own, long[] rival, int symmetry) {
+            int[] map = forward[symmetry];
+            long key = sizeKey;
+            for(int i = BitBoard.nextSetBit(own, 0); i >= 0; i = BitBoard.nextSetBit(own, i + 1)) {
+                key ^= Zobrist.piece(map[i], Player.BLACK, 0);
+            }
+            for(int i = BitBoard.nextSetBit(rival, 0); i >= 0; i = BitBoard.nextSetBit(rival, i + 1)) {
+                key ^= Zobrist.piece(map[i], Player.WHITE, 0);
+            }
+            return key;
+        }
+
+        int toCanonical(int square, int symmetry) {
+            return forward[symmetry][square];
+        }
+
+        int fromCanonical(int square, int symmetry) {
+            return backward[symmetry][square];
+        }
+    }
+}
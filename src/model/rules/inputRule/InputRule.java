@@ -5,6 +5,16 @@ import model.structs.Move;
 public interface InputRule {
     Move ParseInput(String input);
 
+    /**
+     * Formats a move the way players type it, the reverse of {@link #ParseInput}.
+     *
+     * @param move the move to format
+     * @return the command text of the move
+     */
+    default String formatMove(Move move) {
+        return formatPosition(move.end.x, move.end.y);
+    }
+
     /**
      * Converts a row character code to its corresponding integer value.
      *
@@ -29,4 +39,16 @@ public interface InputRule {
                 code - 'A' + 1 :
                 code - 'a' + 1 ;
     }
+
+    /**
+     * Formats a position the way players type it, row first (e.g. 3D).
+     *
+     * @param x the column, from 1
+     * @param y the row, from 1
+     * @return the position code
+     */
+    static String formatPosition(int x, int y) {
+        char row = y <= 9 ? (char) ('0' + y) : (char) ('A' + y - 10);
+        return "" + row + (char) ('A' + x - 1);
+    }
 }
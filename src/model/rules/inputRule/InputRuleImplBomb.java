@@ -34,4 +34,13 @@ public class InputRuleImplBomb implements InputRule {
                 piece
         );
     }
+
+    @Override
+    public String formatMove(Move move) {
+        String position = InputRule.formatPosition(move.end.x, move.end.y);
+        if(move.piece instanceof PieceImplBomb piece && piece.getType() == BombPieceType.CRATER) {
+            return PieceImplBomb.CRATER_PIECE + position;
+        }
+        return position;
+    }
 }
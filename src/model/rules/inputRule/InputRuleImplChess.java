@@ -0,0 +1,66 @@
+package model.rules.inputRule;
+
+import model.enums.ChessPieceType;
+import model.pieces.PieceImplChess;
+import model.structs.Move;
+import model.structs.Point;
+
+import java.util.Arrays;
+
+/**
+ * Coordinate notation: start and end square, e.g. e2e4, and the piece of a promotion, e.g. e7e8q.
+ * Row 1 of the grid is rank 8.
+ */
+public class InputRuleImplChess implements InputRule {
+
+    private static final InputRuleImplChess instance = new InputRuleImplChess();
+
+    public static InputRuleImplChess getInputRule() {
+        return instance;
+    }
+
+    private InputRuleImplChess() {}
+
+    private static final int SIZE = 8;
+    private static final String PROMOTIONS = "nbrq";
+    private static final ChessPieceType[] PROMOTION_TYPES = {
+            ChessPieceType.KNIGHT, ChessPieceType.BISHOP, ChessPieceType.ROOK, ChessPieceType.QUEEN};
+
+    @Override
+    public Move ParseInput(String input) {
+        String text = input.toLowerCase();
+        if(text.length() != 4 && text.length() != 5) {
+            return null;
+        }
+        PieceImplChess piece = new PieceImplChess();
+        if(text.length() == 5) {
+            int promotion = PROMOTIONS.indexOf(text.charAt(4));
+            if(promotion < 0) {
+                return null;
+            }
+            piece.setPieceType(PROMOTION_TYPES[promotion]);
+        }
+        return new Move(parseSquare(text, 0), parseSquare(text, 2), piece);
+    }
+
+    // out of board squares are left to the rule to reject
+    private static Point parseSquare(String text, int offset) {
+        return new Point(text.charAt(offset) - 'a' + 1, SIZE + 1 - (text.charAt(offset + 1) - '0'));
+    }
+
+    @Override
+    public String formatMove(Move move) {
+        String text = formatSquare(move.start) + formatSquare(move.end);
+        if(move.piece instanceof PieceImplChess pieceImplChess) {
+            int promotion = Arrays.asList(PROMOTION_TYPES).indexOf(pieceImplChess.getPieceType());
+            if(promotion >= 0) {
+                text += PROMOTIONS.charAt(promotion);
+            }
+        }
+        return text;
+    }
+
+    private static String formatSquare(Point point) {
+        return "" + (char) ('a' + point.x - 1) + (char) ('0' + SIZE + 1 - point.y);
+    }
+}
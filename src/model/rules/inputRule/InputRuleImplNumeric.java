@@ -0,0 +1,43 @@
+package model.rules.inputRule;
+
+import model.pieces.PieceImplMonochrome;
+import model.structs.Move;
+import model.structs.Point;
+
+/**
+ * Positions as row and column numbers, row first (e.g. 500,501), for boards
+ * too big for one character per coordinate. The short form (e.g. 3D) is still accepted.
+ */
+public class InputRuleImplNumeric implements InputRule {
+
+    private static final InputRuleImplNumeric instance = new InputRuleImplNumeric();
+
+    public static InputRuleImplNumeric getInputRule() {
+        return instance;
+    }
+
+    private InputRuleImplNumeric() {}
+
+    @Override
+    public Move ParseInput(String input) {
+        int comma = input.indexOf(',');
+        if(comma < 0) {
+            return InputRuleImplMonochrome.getInputRule().ParseInput(input);
+        }
+        try {
+            return new Move(
+                    new Point(0,0),
+                    new Point(
+                            Integer.parseInt(input.substring(comma + 1)),
+                            Integer.parseInt(input.substring(0, comma))),
+                    new PieceImplMonochrome());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String formatMove(Move move) {
+        return move.end.y + "," + move.end.x;
+    }
+}
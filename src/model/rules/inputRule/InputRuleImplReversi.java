@@ -29,4 +29,12 @@ public class InputRuleImplReversi implements InputRule {
                         InputRule.parseRow(input.charAt(0))),
                 new PieceImplMonochrome());
     }
+
+    @Override
+    public String formatMove(Move move) {
+        if(move.end.x == 0 && move.end.y == 0) {
+            return "pass";
+        }
+        return InputRule.formatPosition(move.end.x, move.end.y);
+    }
 }
@@ -0,0 +1,333 @@
+package model.search;
+
+import model.enums.Player;
+import model.rules.Rule;
+import model.rules.gameRule.GameRule;
+import model.structs.GameStatistics;
+import model.structs.Move;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Iterative deepening principal variation search over any {@link GameRule}.
+ *
+ * <p>Positions are walked with make/unmake on a private copy of the game,
+ * trying the moves of {@link GameRule#generateSearchMoves}. Leaves are scored by
+ * {@link GameRule#evaluate} and finished games by {@link #WIN_SCORE} less the
+ * distance in plies, so quicker wins score higher. A move keeping the player to move,
+ * e.g. the first stone of a connect6 turn, is searched without flipping the score.
+ * Moves are ordered by the transposition table move, two killers per ply
+ * and a history table. The search stops on a wall-clock or node budget and
+ * answers with the last finished iteration.
+ *
+ * <p>An instance keeps its ordering tables between searches and must not be shared between threads.
+ * Several instances may share one {@link TranspositionTable}, see {@link ParallelSearch}.
+ */
+public class AlphaBetaSearch {
+
+    /** score of a won game, less the plies needed to win */
+    public static final int WIN_SCORE = 1_000_000;
+
+    public static final int MAX_DEPTH = 64;
+
+    private static final int INFINITY = WIN_SCORE + 1;
+    private static final int MAX_PLY = MAX_DEPTH + 1;
+    /** shallowest remaining depth kept in the transposition table */
+    private static final int TABLE_DEPTH = 2;
+    /** nodes between two budget checks, minus one */
+    private static final int CHECK_INTERVAL = 1023;
+
+    /**
+     * Result of a search.
+     *
+     * @param move best move found, null if there is none
+     * @param score value of the move for the player to move
+     * @param depth last finished depth
+     * @param nodes positions visited
+     * @param nanos wall time of the search
+     */
+    public record Result(Move move, int score, int depth, long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+    }
+
+    private final Rule rule;
+    private final GameRule gameRule;
+    private final TranspositionTable table;
+    private final int[][] killers;
+    private final int[] history;
+    // per ply move keys and ordering values, grown on demand
+    private final int[][] moveKeys;
+    private final int[][] moveOrder;
+
+    private GameStatistics statistics;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private AtomicBoolean abort;
+    private boolean stopped;
+
+    public AlphaBetaSearch(Rule rule, TranspositionTable table) {
+        this.rule = rule;
+        this.gameRule = rule.getGameRule();
+        this.table = table;
+        this.killers = new int[MAX_PLY][2];
+        this.history = new int[1 << 16];
+        this.moveKeys = new int[MAX_PLY][0];
+        this.moveOrder = new int[MAX_PLY][0];
+    }
+
+    /**
+     * Searches a copy of the game, the game itself is left untouched.
+     *
+     * @param statistics the game to search
+     * @param timeMillis wall-clock budget, 0 for none
+     * @param maxNodes node budget, 0 for none
+     * @param maxDepth deepest iteration, at most {@link #MAX_DEPTH}
+     * @return best move of the last finished iteration
+     */
+    public Result search(GameStatistics statistics, long timeMillis, long maxNodes, int maxDepth) {
+        table.newSearch();
+        return search(statistics, timeMillis, maxNodes, maxDepth, 0, new AtomicBoolean());
+    }
+
+    /**
+     * Searches as one worker of a parallel search.
+     * Helpers start every other one a ply deeper and rotate the root moves,
+     * so the workers spread over the tree and meet through the shared table.
+     *
+     * @param helper 0 for the main worker, the helper number otherwise
+     * @param abort checked along with the budget, stops the search once set
+     */
+    Result search(GameStatistics statistics, long timeMillis, long maxNodes, int maxDepth,
+                  int helper, AtomicBoolean abort) {
+        if(maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Invalid depth: " + maxDepth);
+        }
+        long start = System.nanoTime();
+        this.statistics = new GameStatistics(statistics, rule);
+        this.nodes = 0;
+        this.nodeLimit = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        this.deadline = timeMillis > 0 ? start + timeMillis * 1_000_000 : Long.MAX_VALUE;
+        this.abort = abort;
+        this.stopped = false;
+        for(int[] killer : killers) {
+            killer[0] = killer[1] = -1;
+        }
+        for(int i = 0; i < history.length; i++) {
+            history[i] >>= 2;
+        }
+
+        List<Move> moves = gameRule.generateSearchMoves(this.statistics);
+        if(moves.isEmpty()) {
+            return new Result(null, 0, 0, 0, System.nanoTime() - start);
+        }
+        if(moves.size() == 1) {
+            return new Result(moves.getFirst(), 0, 0, 0, System.nanoTime() - start);
+        }
+
+        Collections.rotate(moves, helper);
+        Move bestMove = moves.getFirst();
+        int bestScore = 0;
+        int bestDepth = 0;
+        for(int depth = Math.min(1 + (helper & 1), maxDepth); depth <= maxDepth; depth++) {
+            int alpha = -INFINITY;
+            Move iterationMove = null;
+            Player mover = this.statistics.getCurrentPlayer();
+            for(int i = 0; i < moves.size(); i++) {
+                Move move = moves.get(i);
+                Perft.makeMove(gameRule, move, this.statistics);
+                int score;
+                if(i == 0) {
+                    score = child(mover, depth - 1, alpha, INFINITY, 1);
+                } else {
+                    score = child(mover, depth - 1, alpha, alpha + 1, 1);
+                    if(score > alpha && !stopped) {
+                        score = child(mover, depth - 1, score, INFINITY, 1);
+                    }
+                }
+                gameRule.unmakeMove(this.statistics);
+                if(stopped) {
+                    break;
+                }
+                if(score > alpha) {
+                    alpha = score;
+                    iterationMove = move;
+                    // keep the best move in front for the next iteration
+                    moves.remove(i);
+                    moves.addFirst(move);
+                }
+            }
+            if(iterationMove != null) {
+                bestMove = iterationMove;
+                bestScore = alpha;
+            }
+            if(stopped) {
+                break;
+            }
+            bestDepth = depth;
+            if(Math.abs(bestScore) >= WIN_SCORE - MAX_PLY) {
+                break;
+            }
+        }
+        return new Result(bestMove, bestScore, bestDepth, nodes, System.nanoTime() - start);
+    }
+
+    private int pvs(int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if((nodes & CHECK_INTERVAL) == 0
+                && (nodes >= nodeLimit || System.nanoTime() >= deadline || abort.get())) {
+            stopped = true;
+        }
+        if(stopped) {
+            return 0;
+        }
+        if(statistics.getWinner() != null) {
+            return terminalScore(ply);
+        }
+        if(depth == 0 || ply >= MAX_PLY) {
+            return gameRule.evaluate(statistics);
+        }
+
+        // frontier nodes skip the table, a probe costs more than their search
+        long hash = statistics.getHash();
+        long entry = depth >= TABLE_DEPTH ? table.probe(hash) : 0;
+        int tableMove = -1;
+        if(entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if(TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if(bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        List<Move> moves = gameRule.generateSearchMoves(statistics);
+        int count = moves.size();
+        if(moveKeys[ply].length < count) {
+            moveKeys[ply] = new int[count];
+            moveOrder[ply] = new int[count];
+        }
+        int[] keys = moveKeys[ply];
+        int[] order = moveOrder[ply];
+        for(int i = 0; i < count; i++) {
+            keys[i] = moveKey(moves.get(i));
+            order[i] = keys[i] == tableMove ? Integer.MAX_VALUE
+                    : keys[i] == killers[ply][0] ? Integer.MAX_VALUE - 1
+                    : keys[i] == killers[ply][1] ? Integer.MAX_VALUE - 2
+                    : history[keys[i]];
+        }
+
+        Player mover = statistics.getCurrentPlayer();
+        int alphaBefore = alpha;
+        int best = -INFINITY;
+        int bestKey = -1;
+        for(int i = 0; i < count; i++) {
+            // selection sort step, most moves are never reached
+            int next = i;
+            for(int j = i + 1; j < count; j++) {
+                if(order[j] > order[next]) {
+                    next = j;
+                }
+            }
+            swap(moves, keys, order, i, next);
+
+            Perft.makeMove(gameRule, moves.get(i), statistics);
+            int bound = Math.max(alpha, best);
+            int score;
+            if(i == 0) {
+                score = child(mover, depth - 1, bound, beta, ply + 1);
+            } else {
+                score = child(mover, depth - 1, bound, bound + 1, ply + 1);
+                if(score > bound && score < beta && !stopped) {
+                    score = child(mover, depth - 1, score, beta, ply + 1);
+                }
+            }
+            gameRule.unmakeMove(statistics);
+            if(stopped) {
+                return 0;
+            }
+            if(score > best) {
+                best = score;
+                bestKey = keys[i];
+                if(best >= beta) {
+                    if(keys[i] != killers[ply][0]) {
+                        killers[ply][1] = killers[ply][0];
+                        killers[ply][0] = keys[i];
+                    }
+                    history[keys[i]] += depth * depth;
+                    break;
+                }
+            }
+        }
+
+        int bound = best <= alphaBefore ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        if(depth >= TABLE_DEPTH) {
+            table.store(hash, bestKey, depth, bound, toTable(best, ply));
+        }
+        return best;
+    }
+
+    // value for the mover of the position after its move, within (alpha, beta) of the mover
+    private int child(Player mover, int depth, int alpha, int beta, int ply) {
+        return statistics.getCurrentPlayer() == mover
+                ? pvs(depth, alpha, beta, ply)
+                : -pvs(depth, -beta, -alpha, ply);
+    }
+
+    // score of a finished game for the player to move
+    private int terminalScore(int ply) {
+        Player winner = statistics.getWinner();
+        if(winner == Player.NONE) {
+            return 0;
+        }
+        return winner == statistics.getCurrentPlayer() ? WIN_SCORE - ply : -(WIN_SCORE - ply);
+    }
+
+    // win scores are kept relative to the stored position
+    private static int toTable(int score, int ply) {
+        return score >= WIN_SCORE - MAX_PLY ? score + ply
+                : score <= -(WIN_SCORE - MAX_PLY) ? score - ply
+                : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= WIN_SCORE - MAX_PLY ? score - ply
+                : score <= -(WIN_SCORE - MAX_PLY) ? score + ply
+                : score;
+    }
+
+    /**
+     * @return 16 bit key of a move, unique among the moves of a position on boards up to 15x15.
+     * Bigger boards fold the coordinates, a rare clash only costs move ordering.
+     */
+    static int moveKey(Move move) {
+        if((move.start.y | move.start.x | move.end.y | move.end.x) < 16) {
+            return move.start.y << 12 | move.start.x << 8 | move.end.y << 4 | move.end.x;
+        }
+        int mixed = (move.end.y * 0x9E3779B9 + move.end.x) * 0x85EBCA6B + move.start.y * 0xC2B2AE35 + move.start.x;
+        return (mixed ^ mixed >>> 16) & 0xFFFF;
+    }
+
+    private static void swap(List<Move> moves, int[] keys, int[] order, int i, int j) {
+        if(i == j) {
+            return;
+        }
+        moves.set(j, moves.set(i, moves.get(j)));
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = order[i];
+        order[i] = order[j];
+        order[j] = value;
+    }
+}
@@ -0,0 +1,140 @@
+package model.search;
+
+import model.enums.Player;
+import model.rules.Rule;
+import model.rules.RuleImplReversi;
+import model.rules.gameRule.GameRuleImplReversi;
+import model.rules.gameRule.ReversiEndgameSolver;
+import model.rules.gameRule.ReversiOpeningBook;
+import model.structs.BitBoard;
+import model.structs.GameStatistics;
+import model.structs.Move;
+
+/**
+ * A computer controlled side of a board, picking its moves by {@link AlphaBetaSearch}.
+ * Reversi boards play from the default {@link ReversiOpeningBook} while it knows the position
+ * and play the {@link ReversiEndgameSolver} move once few squares are left empty.
+ */
+public class ComputerPlayer {
+
+    /** default thinking time per move */
+    public static final long DEFAULT_TIME_MILLIS = 1000;
+
+    private static final int TABLE_BITS = 20;
+    /** empty squares from which reversi is solved to the end instead of searched, well inside a second on 8x8 */
+    private static final int SOLVER_EMPTIES = 14;
+
+    private final Rule rule;
+    private final Player player;
+    private final long timeMillis;
+    private final long maxNodes;
+    private final AlphaBetaSearch search;
+    // made on the first reversi endgame, for the board size of the game
+    private ReversiEndgameSolver solver;
+
+    /**
+     * @param rule rule of the board
+     * @param player the side played
+     * @param timeMillis wall-clock budget per move, 0 for none
+     * @param maxNodes node budget per move, 0 for none
+     */
+    public ComputerPlayer(Rule rule, Player player, long timeMillis, long maxNodes) {
+        if(player == Player.NONE) {
+            throw new IllegalArgumentException("Invalid Player NONE");
+        }
+        if(timeMillis <= 0 && maxNodes <= 0) {
+            throw new IllegalArgumentException("A computer player needs a time or node budget");
+        }
+        this.rule = rule;
+        this.player = player;
+        this.timeMillis = timeMillis;
+        this.maxNodes = maxNodes;
+        this.search = new AlphaBetaSearch(rule, new TranspositionTable(TABLE_BITS));
+    }
+
+    public ComputerPlayer(Rule rule, Player player) {
+        this(rule, player, DEFAULT_TIME_MILLIS, 0);
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Plays from the book, solves the endgame or searches the game within the budget,
+     * the game itself is left untouched.
+     *
+     * @return the chosen move, depth 0 and no nodes for a book move,
+     *         the final disc differential and the empty squares as depth for a solved one
+     */
+    public AlphaBetaSearch.Result think(GameStatistics statistics) {
+        long start = System.nanoTime();
+        Move bookMove = probeBook(statistics);
+        if(bookMove != null) {
+            return new AlphaBetaSearch.Result(bookMove, 0, 0, 0, System.nanoTime() - start);
+        }
+        AlphaBetaSearch.Result solved = probeSolver(statistics, start);
+        if(solved != null) {
+            return solved;
+        }
+        return search.search(statistics, timeMillis, maxNodes, AlphaBetaSearch.MAX_DEPTH);
+    }
+
+    // the legal move the book picks, null when out of book
+    private Move probeBook(GameStatistics statistics) {
+        if(!(rule instanceof RuleImplReversi) || statistics.getWinner() != null) {
+            return null;
+        }
+        ReversiOpeningBook book = ReversiOpeningBook.getDefault();
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        if(book == null || book.getBitBoard() != bitBoard) {
+            return null;
+        }
+        GameRuleImplReversi gameRule = (GameRuleImplReversi) rule.getGameRule();
+        Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+        ReversiOpeningBook.BookMove bookMove = book.choose(
+                gameRule.getDiscs(statistics, player), gameRule.getDiscs(statistics, rival));
+        if(bookMove == null) {
+            return null;
+        }
+        // a key collision must not play an illegal move
+        return findMove(gameRule, statistics, bookMove.square());
+    }
+
+    // the perfect play result once the empty squares are few enough, null before
+    private AlphaBetaSearch.Result probeSolver(GameStatistics statistics, long start) {
+        if(!(rule instanceof RuleImplReversi) || statistics.getWinner() != null) {
+            return null;
+        }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        if(solver == null || solver.getBitBoard() != bitBoard) {
+            solver = new ReversiEndgameSolver(bitBoard, SOLVER_EMPTIES);
+        }
+        GameRuleImplReversi gameRule = (GameRuleImplReversi) rule.getGameRule();
+        Player rival = player == Player.BLACK ? Player.WHITE : Player.BLACK;
+        long[] own = gameRule.getDiscs(statistics, player);
+        long[] other = gameRule.getDiscs(statistics, rival);
+        if(!solver.canSolve(own, other)) {
+            return null;
+        }
+        ReversiEndgameSolver.Solution solution = solver.solve(own, other);
+        Move move = findMove(gameRule, statistics, solution.square());
+        if(move == null) {
+            return null;
+        }
+        return new AlphaBetaSearch.Result(move, solution.discDifferential(), solver.countEmpties(own, other),
+                solution.nodes(), System.nanoTime() - start);
+    }
+
+    // the legal move on a square in the BitBoard layout, the pass for -1, null if not legal
+    private static Move findMove(GameRuleImplReversi gameRule, GameStatistics statistics, int square) {
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        for(Move move : gameRule.generateMoves(statistics)) {
+            boolean pass = move.end.x == 0 && move.end.y == 0;
+            if(pass ? square < 0 : square >= 0 && bitBoard.index(move.end) == square) {
+                return move;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package model.search;
+
+import model.rules.Rule;
+import model.structs.GameStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazy SMP: several {@link AlphaBetaSearch} workers search the same position at once,
+ * each on its own copy of the game, and share only the lock-free {@link TranspositionTable}.
+ *
+ * <p>The main worker runs on the calling thread and keeps the budget, the helpers run on
+ * a private pool until the main worker returns. The answer is the deepest finished
+ * iteration of any worker, the main worker's on a tie.
+ *
+ * <p>An instance runs one search at a time, close it to stop the helper threads.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+    private final AlphaBetaSearch[] workers;
+    private final TranspositionTable table;
+    private final ExecutorService helpers;
+
+    /**
+     * @param rule rule of the searched games
+     * @param table table shared by the workers
+     * @param threads number of workers, the calling thread included
+     */
+    public ParallelSearch(Rule rule, TranspositionTable table, int threads) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("Invalid thread count: " + threads);
+        }
+        this.table = table;
+        this.workers = new AlphaBetaSearch[threads];
+        for(int i = 0; i < threads; i++) {
+            workers[i] = new AlphaBetaSearch(rule, table);
+        }
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Searches copies of the game, the game itself is left untouched.
+     *
+     * @param statistics the game to search
+     * @param timeMillis wall-clock budget, 0 for none
+     * @param maxNodes node budget of the main worker, 0 for none
+     * @param maxDepth deepest iteration, at most {@link AlphaBetaSearch#MAX_DEPTH}
+     * @return best move of the deepest finished iteration, nodes summed over all workers
+     */
+    public AlphaBetaSearch.Result search(GameStatistics statistics, long timeMillis, long maxNodes, int maxDepth) {
+        table.newSearch();
+        AtomicBoolean abort = new AtomicBoolean();
+        List<Future<AlphaBetaSearch.Result>> helperResults = new ArrayList<>(workers.length - 1);
+        for(int i = 1; i < workers.length; i++) {
+            AlphaBetaSearch worker = workers[i];
+            int helper = i;
+            helperResults.add(helpers.submit(() -> worker.search(statistics, 0, 0, maxDepth, helper, abort)));
+        }
+
+        AlphaBetaSearch.Result best;
+        try {
+            best = workers[0].search(statistics, timeMillis, maxNodes, maxDepth, 0, abort);
+        } finally {
+            abort.set(true);
+        }
+
+        long wallNanos = best.nanos();
+        long nodes = best.nodes();
+        for(Future<AlphaBetaSearch.Result> future : helperResults) {
+            AlphaBetaSearch.Result result = join(future);
+            nodes += result.nodes();
+            if(result.depth() > best.depth() && result.move() != null) {
+                best = result;
+            }
+        }
+        return new AlphaBetaSearch.Result(best.move(), best.score(), best.depth(), nodes, wallNanos);
+    }
+
+    @Override
+    public void close() {
+        if(helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    private static AlphaBetaSearch.Result join(Future<AlphaBetaSearch.Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while joining the search helpers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
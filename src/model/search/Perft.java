@@ -0,0 +1,138 @@
+package model.search;
+
+import model.exceptions.GameException;
+import model.rules.Rule;
+import model.rules.gameRule.GameRule;
+import model.structs.GameStatistics;
+import model.structs.Move;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaves of the game tree under a rule, for checking move generation.
+ *
+ * <p>Moves are enumerated by {@link GameRule#generateMoves} and walked with
+ * make/unmake. Passes and crater moves count as moves. Only positions at the requested
+ * depth are leaves, as in chess perft, unless the rule counts a game finished earlier
+ * as a single leaf, see {@link GameRule#perftCountsFinishedGames()}.
+ * Subtrees deep enough are forked onto a {@link ForkJoinPool}, each on its own copy of the game.
+ */
+public class Perft {
+
+    /** subtrees at least this deep are split over the pool */
+    private static final int SPLIT_DEPTH = 4;
+
+    /**
+     * Result of a perft run.
+     *
+     * @param leaves positions at the requested depth
+     * @param nodes all positions visited, root excluded
+     * @param nanos wall time of the run
+     */
+    public record Result(long leaves, long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+    }
+
+    private Perft() {}
+
+    /**
+     * Runs perft on a copy of the game, the game itself is left untouched.
+     *
+     * @param rule rule of the game
+     * @param statistics the game to start from
+     * @param depth number of plies
+     * @param pool pool running the split subtrees
+     * @return leaf and node counts
+     */
+    public static Result run(Rule rule, GameStatistics statistics, int depth, ForkJoinPool pool) {
+        if(depth < 1) {
+            throw new IllegalArgumentException("Invalid depth: " + depth);
+        }
+        long start = System.nanoTime();
+        long[] counts = pool.invoke(new PerftTask(rule, new GameStatistics(statistics, rule), depth));
+        return new Result(counts[0], counts[1], System.nanoTime() - start);
+    }
+
+    /**
+     * Sequential perft with make/unmake.
+     *
+     * @param counts leaves and nodes are added to counts[0] and counts[1]
+     */
+    static void perft(GameRule gameRule, GameStatistics statistics, int depth, long[] counts) {
+        if(statistics.getWinner() != null) {
+            if(gameRule.perftCountsFinishedGames()) {
+                counts[0]++;
+            }
+            return;
+        }
+        List<Move> moves = gameRule.generateMoves(statistics);
+        counts[1] += moves.size();
+        if(depth == 1) {
+            counts[0] += moves.size();
+            return;
+        }
+        for(Move move : moves) {
+            makeMove(gameRule, move, statistics);
+            perft(gameRule, statistics, depth - 1, counts);
+            gameRule.unmakeMove(statistics);
+        }
+    }
+
+    // makes a generated move, which must be legal
+    static void makeMove(GameRule gameRule, Move move, GameStatistics statistics) {
+        try {
+            if(!gameRule.makeMove(move, statistics)) {
+                throw new IllegalStateException("Generated move rejected");
+            }
+        } catch (GameException e) {
+            throw new IllegalStateException("Generated move rejected: " + e.getMessage(), e);
+        }
+    }
+
+    private static class PerftTask extends RecursiveTask<long[]> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        // tasks are never serialized, the pool only runs them
+        private final transient Rule rule;
+        private final transient GameStatistics statistics;
+        private final int depth;
+
+        PerftTask(Rule rule, GameStatistics statistics, int depth) {
+            this.rule = rule;
+            this.statistics = statistics;
+            this.depth = depth;
+        }
+
+        @Override
+        protected long[] compute() {
+            long[] counts = new long[2];
+            GameRule gameRule = rule.getGameRule();
+            if(depth < SPLIT_DEPTH || statistics.getWinner() != null) {
+                perft(gameRule, statistics, depth, counts);
+                return counts;
+            }
+
+            List<Move> moves = gameRule.generateMoves(statistics);
+            counts[1] += moves.size();
+            List<PerftTask> subtasks = new ArrayList<>(moves.size());
+            for(Move move : moves) {
+                GameStatistics child = new GameStatistics(statistics, rule);
+                makeMove(gameRule, move, child);
+                subtasks.add(new PerftTask(rule, child, depth - 1));
+            }
+            invokeAll(subtasks);
+            for(PerftTask subtask : subtasks) {
+                long[] subCounts = subtask.join();
+                counts[0] += subCounts[0];
+                counts[1] += subCounts[1];
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package model.search;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size hash table of search results, keyed by the position hash of
+ * {@link model.structs.GameStatistics#getHash()} and shared by all search threads.
+ *
+ * <p>The table is lock-free. An entry is two longs of one flat array: the key xor-ed with
+ * the packed data (score, bound, depth, search age and best move key), then the data.
+ * Threads write both words without locking, so two writers racing on a slot may leave
+ * a torn entry, which fails the xor check and reads as a miss.
+ *
+ * <p>Slots come in buckets of two. The first is depth-preferred: it keeps its entry unless
+ * the new result is at least as deep or the entry is left from an earlier search.
+ * The second takes whatever the first refused.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    private static final long VALID = 1L << 63;
+    private static final int AGE_BITS = 5;
+
+    private final long[] entries;
+    private final int mask;
+    private int age;
+
+    /**
+     * @param bits log2 of the number of entries
+     */
+    public TranspositionTable(int bits) {
+        if(bits < 1 || bits > 26) {
+            throw new IllegalArgumentException("Invalid table size: 2^" + bits);
+        }
+        // two longs an entry, two entries a bucket
+        this.entries = new long[2 << bits];
+        this.mask = (1 << (bits - 1)) - 1;
+    }
+
+    /**
+     * Starts a new search, entries of earlier searches become the first to be replaced.
+     * Must not run while threads are searching.
+     */
+    public void newSearch() {
+        age = (age + 1) & ((1 << AGE_BITS) - 1);
+    }
+
+    /**
+     * @return the packed entry of the position, 0 if none
+     */
+    public long probe(long hash) {
+        int slot = ((int) hash & mask) << 2;
+        long data = entries[slot + 1];
+        if((entries[slot] ^ data) == hash) {
+            return data;
+        }
+        data = entries[slot + 3];
+        if((entries[slot + 2] ^ data) == hash) {
+            return data;
+        }
+        return 0;
+    }
+
+    public void store(long hash, int move, int depth, int bound, int score) {
+        int slot = ((int) hash & mask) << 2;
+        long old = entries[slot + 1];
+        boolean sameKey = (entries[slot] ^ old) == hash;
+        if(sameKey && depth < depth(old) && age(old) == age) {
+            return;
+        }
+        if(!sameKey && depth < depth(old) && age(old) == age) {
+            // the deep entry stays, the new one goes to the second slot
+            slot += 2;
+        }
+        long data = VALID
+                | (long) age << 58
+                | (long) (move & 0xFFFF) << 42
+                | (long) (depth & 0xFF) << 34
+                | (long) bound << 32
+                | (score & 0xFFFFFFFFL);
+        entries[slot] = hash ^ data;
+        entries[slot + 1] = data;
+    }
+
+    /**
+     * Empties the table. Must not run while threads are searching.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> 42) & 0xFFFF;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 34) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 32) & 0x3;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 58) & ((1 << AGE_BITS) - 1);
+    }
+}
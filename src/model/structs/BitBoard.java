@@ -0,0 +1,211 @@
+package model.structs;
+
+import static model.Board.MAX_BOARD_SIZE;
+
+/**
+ * Bit layout of a height x width board.
+ *
+ * <p>Square (x,y) of the padded piece grid is stored at bit
+ * {@code (y-1)*width + (x-1)}. Masks are plain {@code long[]} of {@link #words} words,
+ * so a board up to 8x8 fits a single word and 15x15 takes four.
+ *
+ * <p>Instances are immutable and shared, use {@link #of(int, int)}.
+ */
+public final class BitBoard {
+
+    private static final BitBoard[][] CACHE = new BitBoard[MAX_BOARD_SIZE + 1][MAX_BOARD_SIZE + 1];
+
+    /**
+     * The 8 directions as (dx,dy), in the same order as the rules' DIRECTIONS tables.
+     */
+    public static final int[] DX = { 1,  1,  1,  0,  0, -1, -1, -1};
+    public static final int[] DY = { 1,  0, -1,  1, -1,  1,  0, -1};
+    public static final int DIRECTION_COUNT = 8;
+
+    public final int height;
+    public final int width;
+    public final int size;
+    public final int words;
+
+    private final long[] full;
+    /** squares allowed to move one step in each direction without leaving the board */
+    private final long[][] preMask;
+    /** index delta of one step in each direction */
+    private final int[] delta;
+    /** grid coordinates of each square, saves a division in hot loops */
+    private final int[] xs;
+    private final int[] ys;
+
+    public static BitBoard of(int height, int width) {
+        if(height <= 0 || height > MAX_BOARD_SIZE || width <= 0 || width > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Invalid board size: " + height + "x" + width);
+        }
+        BitBoard bitBoard = CACHE[height][width];
+        if(bitBoard == null) {
+            synchronized (CACHE) {
+                bitBoard = CACHE[height][width];
+                if(bitBoard == null) {
+                    bitBoard = new BitBoard(height, width);
+                    CACHE[height][width] = bitBoard;
+                }
+            }
+        }
+        return bitBoard;
+    }
+
+    private BitBoard(int height, int width) {
+        this.height = height;
+        this.width = width;
+        this.size = height * width;
+        this.words = (size + 63) >>> 6;
+        this.full = new long[words];
+        this.preMask = new long[DIRECTION_COUNT][words];
+        this.delta = new int[DIRECTION_COUNT];
+        this.xs = new int[size];
+        this.ys = new int[size];
+
+        for(int i = 0; i < size; i++) {
+            set(full, i);
+            xs[i] = i % width + 1;
+            ys[i] = i / width + 1;
+        }
+        for(int d = 0; d < DIRECTION_COUNT; d++) {
+            delta[d] = DY[d] * width + DX[d];
+            for(int y = 1; y <= height; y++) {
+                for(int x = 1; x <= width; x++) {
+                    int tx = x + DX[d];
+                    int ty = y + DY[d];
+                    if(tx >= 1 && tx <= width && ty >= 1 && ty <= height) {
+                        set(preMask[d], index(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    public int index(int x, int y) {
+        return (y - 1) * width + (x - 1);
+    }
+
+    public int index(Point point) {
+        return index(point.x, point.y);
+    }
+
+    public int x(int index) {
+        return xs[index];
+    }
+
+    public int y(int index) {
+        return ys[index];
+    }
+
+    public long[] newMask() {
+        return new long[words];
+    }
+
+    /**
+     * @return all squares of the board, read only
+     */
+    public long[] full() {
+        return full;
+    }
+
+    /**
+     * @return the squares that can take one step in direction d, read only
+     */
+    public long[] preMask(int d) {
+        return preMask[d];
+    }
+
+    public int delta(int d) {
+        return delta[d];
+    }
+
+    /**
+     * Moves every square of src one step in direction d.
+     * Squares stepping off the board are dropped. src and dst may be the same array.
+     */
+    public void shift(long[] src, int d, long[] dst) {
+        long[] pre = preMask[d];
+        int n = delta[d];
+        if(n > 0) {
+            int back = 64 - n;
+            for(int i = words - 1; i > 0; i--) {
+                dst[i] = ((src[i] & pre[i]) << n) | ((src[i-1] & pre[i-1]) >>> back);
+            }
+            dst[0] = (src[0] & pre[0]) << n;
+        } else {
+            n = -n;
+            int back = 64 - n;
+            int last = words - 1;
+            for(int i = 0; i < last; i++) {
+                dst[i] = ((src[i] & pre[i]) >>> n) | ((src[i+1] & pre[i+1]) << back);
+            }
+            dst[last] = (src[last] & pre[last]) >>> n;
+        }
+    }
+
+    /**
+     * Single word version of {@link #shift(long[], int, long[])}, only valid when words == 1.
+     */
+    public long shift(long src, int d) {
+        int n = delta[d];
+        src &= preMask[d][0];
+        return n > 0 ? src << n : src >>> -n;
+    }
+
+    // mask helpers
+
+    public static boolean get(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public static void set(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+
+    public static void clear(long[] mask, int index) {
+        mask[index >>> 6] &= ~(1L << index);
+    }
+
+    public static void clear(long[] mask) {
+        java.util.Arrays.fill(mask, 0L);
+    }
+
+    public static boolean isEmpty(long[] mask) {
+        for(long word : mask) {
+            if(word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int bitCount(long[] mask) {
+        int count = 0;
+        for(long word : mask) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return index of the first set bit at or after from, -1 if none
+     */
+    public static int nextSetBit(long[] mask, int from) {
+        int i = from >>> 6;
+        if(i >= mask.length) {
+            return -1;
+        }
+        long word = mask[i] & (-1L << from);
+        while(true) {
+            if(word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if(++i == mask.length) {
+                return -1;
+            }
+            word = mask[i];
+        }
+    }
+}
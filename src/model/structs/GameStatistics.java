@@ -1,52 +1,106 @@
 package model.structs;
 
+import model.enums.GameType;
 import model.enums.Player;
-import model.pieces.Piece;
 import model.rules.Rule;
 import view.components.AlignType;
 import view.components.DisplayBlock;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 
-import static model.Board.MAX_BOARD_SIZE;
-import static model.Board.MIN_BOARD_SIZE;
+public final class GameStatistics {
 
-public class GameStatistics {
+    /** cell code of the padding ring around the board, reads as an empty square of no type */
+    public static final byte BORDER = 3;
+    /** cell code of an empty square */
+    public static final byte EMPTY = (byte) Player.NONE.ordinal();
 
+    // cell code to owner, the border reads as nobody
+    private static final Player[] PLAYERS = {Player.WHITE, Player.NONE, Player.BLACK, Player.NONE};
 
     private final int height;
     private final int width;
-    private final Piece[][] pieceGrid;
+    // padded board, row by row: the player ordinal in the low two bits, the rule's piece type above
+    private final byte[] cells;
     private final String whitePlayerName;
     private final String blackPlayerName;
     private Player currentPlayer;
     private Player winner;
     private int round;
-    private final Queue<Move> moves;
+    private final MoveLog moves;
+    private final Deque<UndoRecord> undoRecords;
     private Object extraInfo;
+    private long hash;
+    private int emptySquares;
     private DisplayBlock view;
 
     public GameStatistics(int height, int width, String whitePlayerName, String blackPlayerName, Rule rule) {
-        this.moves = new LinkedList<>();
+        this.undoRecords = new ArrayDeque<>();
         // Validate board size
-        if(height < MIN_BOARD_SIZE || height > MAX_BOARD_SIZE ||
-                width < MIN_BOARD_SIZE || width > MAX_BOARD_SIZE ) {
+        int minBoardSize = rule.getGameRule().getMinBoardSize();
+        int maxBoardSize = rule.getGameRule().getMaxBoardSize();
+        if(height < minBoardSize || height > maxBoardSize ||
+                width < minBoardSize || width > maxBoardSize ) {
             throw new IllegalArgumentException("Invalid board size: too large or too small");
         }
         this.height = height;
         this.width = width;
+        this.moves = new MoveLog(height, width, rule.getGameRule().getGameType() == GameType.MOVE_PIECE);
         // Validate player names
         if(whitePlayerName.length() > 32 || blackPlayerName.length() > 32) {
             throw new IllegalArgumentException("Unable to initialize name: too long");
         }
         this.whitePlayerName = whitePlayerName;
         this.blackPlayerName = blackPlayerName;
-        this.pieceGrid = rule.getGameRule().initializeGrid(height, width);
+        this.cells = newCells(rule);
+        if(cells != null) {
+            rule.getGameRule().initializeGrid(this);
+        }
         currentPlayer = Player.BLACK;
         winner = null;
         round = 1;
+        hash = Zobrist.hash(this);
+        emptySquares = countEmptySquares();
+        view = new DisplayBlock(new Rect(0,0,0,0), AlignType.MIDDLE, AlignType.BEGIN);
+    }
+
+    /**
+     * Deep copy of a running game for searches, e.g. one per worker thread.
+     * Undo records and the view are not copied, the copy cannot take back earlier moves.
+     *
+     * @param statistics the game to copy
+     * @param rule the rule of the game
+     */
+    public GameStatistics(GameStatistics statistics, Rule rule) {
+        this.moves = new MoveLog(statistics.moves);
+        this.undoRecords = new ArrayDeque<>();
+        this.height = statistics.height;
+        this.width = statistics.width;
+        this.whitePlayerName = statistics.whitePlayerName;
+        this.blackPlayerName = statistics.blackPlayerName;
+        this.cells = statistics.cells == null ? null : statistics.cells.clone();
+        currentPlayer = statistics.currentPlayer;
+        winner = statistics.winner;
+        round = statistics.round;
+        hash = statistics.hash;
+        emptySquares = statistics.emptySquares;
         view = new DisplayBlock(new Rect(0,0,0,0), AlignType.MIDDLE, AlignType.BEGIN);
+        rule.getGameRule().copyExtraInfo(statistics, this);
+    }
+
+    // a bordered board, or none if the rule keeps the board in its extra info
+    private byte[] newCells(Rule rule) {
+        if(!rule.getGameRule().hasGrid()) {
+            return null;
+        }
+        byte[] board = new byte[(height + 2) * (width + 2)];
+        Arrays.fill(board, BORDER);
+        for(int y = 1; y <= height; y++) {
+            Arrays.fill(board, y * (width + 2) + 1, y * (width + 2) + width + 1, EMPTY);
+        }
+        return board;
     }
 
     public DisplayBlock getView() {
@@ -67,14 +121,99 @@ public class GameStatistics {
             case BLACK -> Player.WHITE;
             default -> throw new IllegalStateException("Unexpected value: " + currentPlayer);
         };
+        hash ^= Zobrist.WHITE_TO_MOVE;
         // check new round
         if (currentPlayer == Player.BLACK) {
             round++;
         }
     }
 
+    /**
+     * Restores the turn of a move being taken back.
+     *
+     * @param player the player who made the move
+     * @param round the round before the move
+     */
+    public void restoreTurn(Player player, int round) {
+        if(this.currentPlayer != player) {
+            hash ^= Zobrist.WHITE_TO_MOVE;
+        }
+        this.currentPlayer = player;
+        this.round = round;
+        this.winner = null;
+    }
+
+    /**
+     * Position hash: grid contents, side to move and rule specific state.
+     * Kept up to date incrementally by the rules, see {@link Zobrist}.
+     *
+     * @return 64-bit Zobrist key of the position
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Toggles a Zobrist key in or out of the position hash.
+     */
+    public void xorHash(long key) {
+        hash ^= key;
+    }
+
+    /**
+     * Squares without a piece, kept up to date by the rules as pieces come and go.
+     */
+    public int getEmptySquares() {
+        return emptySquares;
+    }
+
+    /**
+     * @param change squares emptied minus squares filled
+     */
+    public void addEmptySquares(int change) {
+        emptySquares += change;
+    }
+
+    private int countEmptySquares() {
+        if(cells == null) {
+            return height * width;
+        }
+        int count = 0;
+        for(byte cell : cells) {
+            if((cell & 3) == EMPTY) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Logs a move of the current player.
+     */
     public void addMove(Move move) {
-        moves.add(move);
+        moves.add(move, currentPlayer);
+    }
+
+    /**
+     * Logs a pass of the current player.
+     */
+    public void addPass() {
+        moves.addPass(currentPlayer);
+    }
+
+    public void removeLastMove() {
+        moves.removeLast();
+    }
+
+    public void pushUndoRecord(UndoRecord record) {
+        undoRecords.push(record);
+    }
+
+    /**
+     * @return the last undo record, null if no moves were made
+     */
+    public UndoRecord popUndoRecord() {
+        return undoRecords.poll();
     }
 
     public void setWinner(Player winner) {
@@ -89,8 +228,73 @@ public class GameStatistics {
         return width;
     }
 
-    public Piece[][] getPieceGrid() {
-        return pieceGrid;
+    /**
+     * @return false on boards the rule keeps itself, the cell accessors are not to be used then
+     */
+    public boolean hasGrid() {
+        return cells != null;
+    }
+
+    /**
+     * Index of a square in the padded cells, row by row, the border at x or y 0 and width or height + 1.
+     */
+    public int cellIndex(int x, int y) {
+        return y * (width + 2) + x;
+    }
+
+    /**
+     * @param cell index from {@link #cellIndex}
+     * @return owner of the square, NONE for an empty or border square
+     */
+    public Player getPlayer(int cell) {
+        return PLAYERS[cells[cell] & 3];
+    }
+
+    public Player getPlayer(int x, int y) {
+        return getPlayer(cellIndex(x, y));
+    }
+
+    /**
+     * @param cell index from {@link #cellIndex}
+     * @return rule specific piece type, the ordinal of its piece type enum, 0 on the border
+     */
+    public int getPieceType(int cell) {
+        return cells[cell] >>> 2;
+    }
+
+    public int getPieceType(int x, int y) {
+        return getPieceType(cellIndex(x, y));
+    }
+
+    /**
+     * Changes the owner of a square, its piece type stays.
+     */
+    public void setPlayer(int cell, Player player) {
+        cells[cell] = (byte) (cells[cell] & ~3 | player.ordinal());
+    }
+
+    public void setPlayer(int x, int y, Player player) {
+        setPlayer(cellIndex(x, y), player);
+    }
+
+    /**
+     * Puts a piece on a square, or empties it with NONE and type 0.
+     *
+     * @param type rule specific piece type, below 32
+     */
+    public void setPiece(int cell, Player player, int type) {
+        cells[cell] = (byte) (type << 2 | player.ordinal());
+    }
+
+    public void setPiece(int x, int y, Player player, int type) {
+        setPiece(cellIndex(x, y), player, type);
+    }
+
+    /**
+     * @return true on the padding ring around the board
+     */
+    public boolean isBorder(int cell) {
+        return cells[cell] == BORDER;
     }
 
     public String getBlackPlayerName() {
@@ -113,7 +317,7 @@ public class GameStatistics {
         return round;
     }
 
-    public Queue<Move> getMoves() {
+    public MoveLog getMoves() {
         return moves;
     }
 }
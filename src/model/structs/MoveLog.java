@@ -0,0 +1,201 @@
+package model.structs;
+
+import model.enums.Player;
+import model.pieces.Piece;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only log of the moves of a game, one int per move in a growable array.
+ *
+ * <p>An entry packs, from the low bits up:
+ * <ul>
+ *     <li>the square, (y-1)*width + (x-1) as in the {@link BitBoard} layout;
+ *         in games moving pieces the start square times the squares of the board plus the end square</li>
+ *     <li>the rule's piece type, see {@link Piece#getTypeCode()}, e.g. the bomb crater or a chess promotion</li>
+ *     <li>the player at bit 30, 1 for white</li>
+ *     <li>the pass flag at bit 31, a pass has no square</li>
+ * </ul>
+ * The square takes the bits the board needs and the piece type the rest, so the largest sparse boards
+ * keep no piece type, which their stones do not have.
+ */
+public final class MoveLog {
+
+    private static final int PLAYER_BIT = 30;
+    private static final int PASS_BIT = 31;
+    private static final int FIELD_MASK = (1 << PLAYER_BIT) - 1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int width;
+    private final int squares;
+    private final boolean movesPieces;
+    // bits of the square field, the piece type starts here
+    private final int typeShift;
+    private int[] entries;
+    private int size;
+
+    /**
+     * @param movesPieces true if moves have a start square, as in chess
+     */
+    public MoveLog(int height, int width, boolean movesPieces) {
+        this.width = width;
+        this.squares = height * width;
+        this.movesPieces = movesPieces;
+        long values = movesPieces ? (long) squares * squares : squares;
+        this.typeShift = 64 - Long.numberOfLeadingZeros(Math.max(1, values - 1));
+        if(typeShift > PLAYER_BIT) {
+            throw new IllegalArgumentException("Board too large for the move log");
+        }
+        this.entries = new int[INITIAL_CAPACITY];
+    }
+
+    public MoveLog(MoveLog log) {
+        this.width = log.width;
+        this.squares = log.squares;
+        this.movesPieces = log.movesPieces;
+        this.typeShift = log.typeShift;
+        this.entries = Arrays.copyOf(log.entries, Math.max(INITIAL_CAPACITY, log.size));
+        this.size = log.size;
+    }
+
+    /**
+     * Appends a move of a player, its piece type read from the piece of the move.
+     */
+    public void add(Move move, Player player) {
+        int square = square(move.end);
+        if(movesPieces) {
+            square += square(move.start) * squares;
+        }
+        int type = move.piece == null ? 0 : move.piece.getTypeCode();
+        if(type >>> (PLAYER_BIT - typeShift) != 0) {
+            throw new IllegalArgumentException("Piece type " + type + " does not fit in the move log");
+        }
+        append(square | type << typeShift | playerBit(player));
+    }
+
+    public void addPass(Player player) {
+        append(1 << PASS_BIT | playerBit(player));
+    }
+
+    /**
+     * Drops the last entry, for a move taken back.
+     *
+     * @return false if the log is empty
+     */
+    public boolean removeLast() {
+        if(size == 0) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return entry of move number index, from 0
+     */
+    public int get(int index) {
+        return entries[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * @return entry of the last move
+     * @throws NoSuchElementException if no move was made
+     */
+    public int last() {
+        if(size == 0) {
+            throw new NoSuchElementException("No moves");
+        }
+        return entries[size - 1];
+    }
+
+    /**
+     * Entries of the moves made so far, first move first. Moves appended meanwhile may be missed.
+     */
+    public IntStream stream() {
+        return Arrays.stream(entries, 0, size);
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return stream().iterator();
+    }
+
+    public static boolean isPass(int entry) {
+        return entry < 0;
+    }
+
+    public static Player player(int entry) {
+        return (entry >>> PLAYER_BIT & 1) == 1 ? Player.WHITE : Player.BLACK;
+    }
+
+    public int pieceType(int entry) {
+        return (entry & FIELD_MASK) >>> typeShift;
+    }
+
+    /**
+     * @return end square in the {@link BitBoard} layout, -1 for a pass
+     */
+    public int square(int entry) {
+        return isPass(entry) ? -1 : (entry & ((1 << typeShift) - 1)) % squares;
+    }
+
+    /**
+     * @return start square in the {@link BitBoard} layout, -1 in games placing pieces or for a pass
+     */
+    public int startSquare(int entry) {
+        return !movesPieces || isPass(entry) ? -1 : (entry & ((1 << typeShift) - 1)) / squares;
+    }
+
+    /**
+     * @return x of the end square, 0 for a pass
+     */
+    public int x(int entry) {
+        return isPass(entry) ? 0 : square(entry) % width + 1;
+    }
+
+    /**
+     * @return y of the end square, 0 for a pass
+     */
+    public int y(int entry) {
+        return isPass(entry) ? 0 : square(entry) / width + 1;
+    }
+
+    /**
+     * Turns an entry back into a move for replay or export, a pass ending at (0,0) as the rules take it.
+     *
+     * @param piece a fresh piece of the rule's kind, given the player and piece type of the entry
+     */
+    public Move toMove(int entry, Piece piece) {
+        piece.setPlayer(player(entry));
+        piece.setTypeCode(pieceType(entry));
+        int start = startSquare(entry);
+        Point from = start < 0 ? new Point(0, 0) : new Point(start % width + 1, start / width + 1);
+        return new Move(from, new Point(x(entry), y(entry)), piece);
+    }
+
+    private int square(Point point) {
+        return (point.y - 1) * width + (point.x - 1);
+    }
+
+    private static int playerBit(Player player) {
+        return player == Player.WHITE ? 1 << PLAYER_BIT : 0;
+    }
+
+    private void append(int entry) {
+        if(size == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[size++] = entry;
+    }
+}
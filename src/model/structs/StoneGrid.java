@@ -0,0 +1,68 @@
+package model.structs;
+
+import model.enums.Player;
+
+/**
+ * Stones of a board too big for the padded piece grid, addressed by (x,y) from (1,1).
+ *
+ * <p>Squares outside the board read as empty, so walks along a line stop at the edge
+ * without a padding ring. Use {@link #of(int, int)}, which keeps small boards dense
+ * and only stores the occupied tiles of big ones.
+ */
+public interface StoneGrid {
+
+    /** boards up to this many squares are stored densely */
+    int MAX_DENSE_SQUARES = 1 << 16;
+
+    /**
+     * @return a dense grid for small boards, a chunked one otherwise
+     */
+    static StoneGrid of(int height, int width) {
+        return (long) height * width <= MAX_DENSE_SQUARES
+                ? new StoneGridImplDense(height, width)
+                : new StoneGridImplChunked(height, width);
+    }
+
+    int getHeight();
+
+    int getWidth();
+
+    /**
+     * @return owner of the stone on the square, NONE if it is empty or off the board
+     */
+    Player get(int x, int y);
+
+    /**
+     * Puts a stone on a square or, with NONE, takes it off.
+     */
+    void set(int x, int y, Player player);
+
+    /**
+     * @return stones on the board
+     */
+    int getStones();
+
+    /**
+     * @return a deep copy
+     */
+    StoneGrid copy();
+
+    /**
+     * Byte code of a player, 0 for an empty square.
+     */
+    static byte code(Player player) {
+        return switch (player) {
+            case BLACK -> 1;
+            case WHITE -> 2;
+            default -> 0;
+        };
+    }
+
+    static Player player(byte code) {
+        return switch (code) {
+            case 1 -> Player.BLACK;
+            case 2 -> Player.WHITE;
+            default -> Player.NONE;
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package model.structs;
+
+import model.enums.Player;
+
+import java.util.Arrays;
+
+/**
+ * Sparse grid for huge boards: the board is cut into {@value #TILE} x {@value #TILE} tiles,
+ * only tiles holding a stone are allocated, found through an open addressing map
+ * from the packed tile position to the tile. Memory grows with the stones placed,
+ * not with the board area.
+ */
+public final class StoneGridImplChunked implements StoneGrid {
+
+    private static final int TILE_BITS = 4;
+    private static final int TILE = 1 << TILE_BITS;
+    private static final int TILE_MASK = TILE - 1;
+    /** marks a free slot, no tile position packs to it */
+    private static final long NO_KEY = -1;
+
+    private final int height;
+    private final int width;
+    private int stones;
+
+    // tile position to index into tiles, linear probing, at most half full
+    private long[] keys;
+    private int[] slots;
+    private byte[][] tiles;
+    private int tileCount;
+
+    public StoneGridImplChunked(int height, int width) {
+        this.height = height;
+        this.width = width;
+        this.stones = 0;
+        this.keys = new long[16];
+        Arrays.fill(keys, NO_KEY);
+        this.slots = new int[16];
+        this.tiles = new byte[8][];
+        this.tileCount = 0;
+    }
+
+    private StoneGridImplChunked(StoneGridImplChunked source) {
+        this.height = source.height;
+        this.width = source.width;
+        this.stones = source.stones;
+        this.keys = source.keys.clone();
+        this.slots = source.slots.clone();
+        this.tiles = new byte[source.tiles.length][];
+        for(int i = 0; i < source.tileCount; i++) {
+            tiles[i] = source.tiles[i].clone();
+        }
+        this.tileCount = source.tileCount;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public Player get(int x, int y) {
+        if(x < 1 || x > width || y < 1 || y > height) {
+            return Player.NONE;
+        }
+        int slot = find(key(x, y));
+        if(keys[slot] == NO_KEY) {
+            return Player.NONE;
+        }
+        return StoneGrid.player(tiles[slots[slot]][cell(x, y)]);
+    }
+
+    @Override
+    public void set(int x, int y, Player player) {
+        if(x < 1 || x > width || y < 1 || y > height) {
+            throw new IllegalArgumentException("Position (" + x + "," + y + ") out of board");
+        }
+        long key = key(x, y);
+        int slot = find(key);
+        if(keys[slot] == NO_KEY) {
+            if(player == Player.NONE) {
+                return;
+            }
+            slot = addTile(key, slot);
+        }
+        byte[] tile = tiles[slots[slot]];
+        int cell = cell(x, y);
+        stones += (player == Player.NONE ? 0 : 1) - (tile[cell] == 0 ? 0 : 1);
+        tile[cell] = StoneGrid.code(player);
+    }
+
+    @Override
+    public int getStones() {
+        return stones;
+    }
+
+    /**
+     * @return tiles allocated so far
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    @Override
+    public StoneGrid copy() {
+        return new StoneGridImplChunked(this);
+    }
+
+    private static long key(int x, int y) {
+        return (long) (y >>> TILE_BITS) << 32 | x >>> TILE_BITS;
+    }
+
+    private static int cell(int x, int y) {
+        return (y & TILE_MASK) << TILE_BITS | x & TILE_MASK;
+    }
+
+    // slot holding the key, or the free slot it would go to
+    private int find(long key) {
+        int mask = keys.length - 1;
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ mixed >>> 32) & mask;
+        while(keys[slot] != NO_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int addTile(long key, int slot) {
+        if(2 * (tileCount + 1) > keys.length) {
+            rehash();
+            slot = find(key);
+        }
+        if(tileCount == tiles.length) {
+            tiles = Arrays.copyOf(tiles, 2 * tileCount);
+        }
+        tiles[tileCount] = new byte[TILE * TILE];
+        keys[slot] = key;
+        slots[slot] = tileCount++;
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[2 * oldKeys.length];
+        Arrays.fill(keys, NO_KEY);
+        slots = new int[keys.length];
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] != NO_KEY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+}
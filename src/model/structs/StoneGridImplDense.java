@@ -0,0 +1,70 @@
+package model.structs;
+
+import model.enums.Player;
+
+/**
+ * One byte per square with an empty border ring, for boards of up to
+ * {@link StoneGrid#MAX_DENSE_SQUARES} squares.
+ */
+public final class StoneGridImplDense implements StoneGrid {
+
+    private final int height;
+    private final int width;
+    private final int stride;
+    private final byte[] cells;
+    private int stones;
+
+    public StoneGridImplDense(int height, int width) {
+        this.height = height;
+        this.width = width;
+        this.stride = width + 2;
+        this.cells = new byte[(height + 2) * stride];
+        this.stones = 0;
+    }
+
+    private StoneGridImplDense(StoneGridImplDense source) {
+        this.height = source.height;
+        this.width = source.width;
+        this.stride = source.stride;
+        this.cells = source.cells.clone();
+        this.stones = source.stones;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public Player get(int x, int y) {
+        if(x < 0 || x > width + 1 || y < 0 || y > height + 1) {
+            return Player.NONE;
+        }
+        return StoneGrid.player(cells[y * stride + x]);
+    }
+
+    @Override
+    public void set(int x, int y, Player player) {
+        if(x < 1 || x > width || y < 1 || y > height) {
+            throw new IllegalArgumentException("Position (" + x + "," + y + ") out of board");
+        }
+        int cell = y * stride + x;
+        stones += (player == Player.NONE ? 0 : 1) - (cells[cell] == 0 ? 0 : 1);
+        cells[cell] = StoneGrid.code(player);
+    }
+
+    @Override
+    public int getStones() {
+        return stones;
+    }
+
+    @Override
+    public StoneGrid copy() {
+        return new StoneGridImplDense(this);
+    }
+}
@@ -0,0 +1,35 @@
+package model.structs;
+
+import model.enums.Player;
+
+/**
+ * Compact undo entry of a single move, pushed by the rules on every placed piece.
+ *
+ * <p>Holds just enough to restore the board in O(changed squares):
+ * the placed square, the squares flipped by it, the player and round before the move
+ * and a few rule specific flags (e.g. the reversi pass state, the bomb crater bit).
+ */
+public class UndoRecord {
+    /** square index in the {@link BitBoard} layout, -1 for a pass */
+    public final int square;
+    /** the player who made the move */
+    public final Player player;
+    /** the round before the move */
+    public final int round;
+    /** squares flipped by the move, null if nothing flipped */
+    public final long[] flipped;
+    /** rule specific state before the move */
+    public final int flags;
+
+    public UndoRecord(int square, Player player, int round, long[] flipped, int flags) {
+        this.square = square;
+        this.player = player;
+        this.round = round;
+        this.flipped = flipped;
+        this.flags = flags;
+    }
+
+    public boolean isPass() {
+        return square < 0;
+    }
+}
@@ -0,0 +1,140 @@
+package model.structs;
+
+import model.enums.Player;
+
+import static model.Board.MAX_BOARD_SIZE;
+
+/**
+ * Zobrist keys of the position hash kept by {@link GameStatistics}.
+ *
+ * <p>The keys come from a fixed seed, so the same position hashes the same in every JVM
+ * and hashes can be stored on disk.
+ */
+public final class Zobrist {
+
+    private static final int MAX_SQUARES = MAX_BOARD_SIZE * MAX_BOARD_SIZE;
+    private static final int PLAYERS = Player.values().length;
+    /** piece types: bomb types and chess types share the same slots */
+    private static final int TYPES = 8;
+    private static final int MAX_BOMBS = 16;
+    private static final int MAX_CAPTURES = 16;
+
+    private static final long[] PIECE = new long[MAX_SQUARES * PLAYERS * TYPES];
+    private static final long[] BOMB = new long[PLAYERS * MAX_BOMBS];
+    private static final long[] CAPTURE = new long[PLAYERS * MAX_CAPTURES];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+
+    /** xor-ed in while white is to move */
+    public static final long WHITE_TO_MOVE;
+    /** xor-ed in while the last reversi move was a pass */
+    public static final long PASSED;
+    /** xor-ed in while the player to move places the last stone of a turn of several */
+    public static final long LAST_STONE;
+
+    static {
+        long seed = 0x5EED_2EE5_0000_0042L;
+        for(int i = 0; i < PIECE.length; i++) {
+            PIECE[i] = seed = next(seed);
+        }
+        for(int i = 0; i < BOMB.length; i++) {
+            BOMB[i] = seed = next(seed);
+        }
+        WHITE_TO_MOVE = seed = next(seed);
+        PASSED = seed = next(seed);
+        // keys added later come last, the earlier ones stay as stored on disk
+        LAST_STONE = seed = next(seed);
+        for(int i = 0; i < CAPTURE.length; i++) {
+            CAPTURE[i] = seed = next(seed);
+        }
+        // no castling right hashes as 0, like an empty square
+        for(int i = 1; i < CASTLING.length; i++) {
+            CASTLING[i] = seed = next(seed);
+        }
+        for(int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = seed = next(seed);
+        }
+    }
+
+    private Zobrist() {}
+
+    // splitmix64 step, returns the mixed value of the next state
+    private static long next(long state) {
+        long z = state + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param square square index in the {@link BitBoard} layout
+     * @param player owner of the piece
+     * @param type rule specific piece type, 0 for plain pieces
+     * @return key of the piece, 0 for an empty normal square
+     */
+    public static long piece(int square, Player player, int type) {
+        if(player == Player.NONE && type == 0) {
+            return 0;
+        }
+        return PIECE[(square * PLAYERS + player.ordinal()) * TYPES + type];
+    }
+
+    /**
+     * Key of a stone on a board beyond the key table, mixed from the square on the fly.
+     *
+     * @param square square index, (y-1)*width + (x-1)
+     */
+    public static long stone(int square, Player player) {
+        if(player == Player.NONE) {
+            return 0;
+        }
+        return next(PIECE[player.ordinal()] ^ (long) square * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * @return key of a player holding count bombs
+     */
+    public static long bombs(Player player, int count) {
+        return BOMB[player.ordinal() * MAX_BOMBS + count];
+    }
+
+    /**
+     * @return key of a player having captured count pairs
+     */
+    public static long captures(Player player, int count) {
+        return CAPTURE[player.ordinal() * MAX_CAPTURES + count];
+    }
+
+    /**
+     * @param rights chess castling rights, one bit per king and side
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param file file of a chess en passant square, from 0
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT[file];
+    }
+
+    /**
+     * Hashes the grid contents and side to move from scratch.
+     * Rule specific state is added by the rules themselves, as is the board of a rule without a piece grid.
+     */
+    public static long hash(GameStatistics statistics) {
+        long hash = statistics.getCurrentPlayer() == Player.WHITE ? WHITE_TO_MOVE : 0;
+        if(!statistics.hasGrid()) {
+            return hash;
+        }
+        BitBoard bitBoard = BitBoard.of(statistics.getHeight(), statistics.getWidth());
+        for(int y = 1; y <= statistics.getHeight(); y++) {
+            for(int x = 1; x <= statistics.getWidth(); x++) {
+                int cell = statistics.cellIndex(x, y);
+                hash ^= piece(bitBoard.index(x, y), statistics.getPlayer(cell), statistics.getPieceType(cell));
+            }
+        }
+        return hash;
+    }
+}
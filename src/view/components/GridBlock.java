@@ -2,18 +2,50 @@ package view.components;
 
 import model.structs.Rect;
 
+/**
+ * A grid of cells, one character each, with the row and column labels in row and column 0.
+ *
+ * <p>A grid smaller than its board is a viewport: the origin is the board square shown
+ * in cell (1,1), so only the visible window is kept and drawn.
+ */
 public class GridBlock extends AbstractDisplayBlock{
     int[][] grid;
+    int originX;
+    int originY;
 
     public GridBlock(Rect margin, AlignType verticalAlign, AlignType horizontalAlign, int height, int width) {
         super(margin, verticalAlign, horizontalAlign);
         this.grid = new int[height][width];
+        this.originX = 1;
+        this.originY = 1;
     }
 
     public int[][] getGrid() {
         return grid;
     }
 
+    /**
+     * @return column of the board square in cell (1,1)
+     */
+    public int getOriginX() {
+        return originX;
+    }
+
+    /**
+     * @return row of the board square in cell (1,1)
+     */
+    public int getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Moves the viewport, so that cell (1,1) shows board square (x,y).
+     */
+    public void setOrigin(int x, int y) {
+        this.originX = x;
+        this.originY = y;
+    }
+
     @Override
     public int getAvailableWidth() {
         return grid[0].length * 2;